@@ -0,0 +1,147 @@
+package com.paki.expense_tracker.benchmark;
+
+import com.paki.expense_tracker.dto.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The per-user aggregations behind /total, /category-stats and /with-spending, in memory.
+// "Doubles" is how the controllers computed them originally (streams over double amounts);
+// "Cents" is a single pass over long cents into long[] buckets, as the rollup maintains them now.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    private List<SyntheticExpenses.Row> expenses;
+    private Map<String, Long> budgetCents;
+
+    @Setup
+    public void setUp() {
+        expenses = SyntheticExpenses.rows(rows);
+        budgetCents = new HashMap<>();
+        for (String category : SyntheticExpenses.CATEGORIES) {
+            budgetCents.put(category, 500_000L);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> totalSpendingDoubles() {
+        double total = expenses.stream().mapToDouble(SyntheticExpenses.Row::amount).sum();
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", total);
+        response.put("count", expenses.size());
+        response.put("average", expenses.isEmpty() ? 0 : total / expenses.size());
+        return response;
+    }
+
+    @Benchmark
+    public Map<String, Object> totalSpendingCents() {
+        long totalCents = 0;
+        for (SyntheticExpenses.Row expense : expenses) {
+            totalCents += expense.amountCents();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", Money.toDecimal(totalCents));
+        response.put("count", expenses.size());
+        response.put("average", Money.toDecimal(expenses.isEmpty() ? 0 : Math.round((double) totalCents / expenses.size())));
+        return response;
+    }
+
+    @Benchmark
+    public Map<String, Object> categoryStatsDoubles() {
+        Map<String, Object> categoryStats = new HashMap<>();
+        expenses.stream()
+                .collect(Collectors.groupingBy(SyntheticExpenses.Row::category,
+                        Collectors.summingDouble(SyntheticExpenses.Row::amount)))
+                .forEach((category, total) -> {
+                    Map<String, Object> stat = new HashMap<>();
+                    stat.put("total", total);
+                    stat.put("count", expenses.stream().filter(e -> e.category().equals(category)).count());
+                    categoryStats.put(category, stat);
+                });
+        return categoryStats;
+    }
+
+    @Benchmark
+    public Map<String, Object> categoryStatsCents() {
+        Map<String, long[]> buckets = bucketByCategory();
+        Map<String, Object> categoryStats = new HashMap<>();
+        buckets.forEach((category, bucket) -> {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("total", Money.toDecimal(bucket[0]));
+            stat.put("count", bucket[1]);
+            categoryStats.put(category, stat);
+        });
+        return categoryStats;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> budgetsWithSpendingDoubles() {
+        List<Map<String, Object>> response = new ArrayList<>();
+        budgetCents.forEach((category, cents) -> {
+            double amount = cents / 100.0;
+            double spent = expenses.stream()
+                    .filter(e -> e.category().equals(category))
+                    .mapToDouble(SyntheticExpenses.Row::amount)
+                    .sum();
+            Map<String, Object> data = new HashMap<>();
+            data.put("category", category);
+            data.put("amount", amount);
+            data.put("spent", spent);
+            data.put("remaining", amount - spent);
+            data.put("percentage", (spent / amount) * 100);
+            response.add(data);
+        });
+        return response;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> budgetsWithSpendingCents() {
+        Map<String, long[]> buckets = bucketByCategory();
+        List<Map<String, Object>> response = new ArrayList<>();
+        budgetCents.forEach((category, amountCents) -> {
+            long[] bucket = buckets.get(category);
+            long spentCents = bucket == null ? 0 : bucket[0];
+            Map<String, Object> data = new HashMap<>();
+            data.put("category", category);
+            data.put("amount", Money.toDecimal(amountCents));
+            data.put("spent", Money.toDecimal(spentCents));
+            data.put("remaining", Money.toDecimal(amountCents - spentCents));
+            data.put("percentage", Money.percentage(spentCents, amountCents));
+            response.add(data);
+        });
+        return response;
+    }
+
+    private Map<String, long[]> bucketByCategory() {
+        Map<String, long[]> buckets = new HashMap<>();
+        for (SyntheticExpenses.Row expense : expenses) {
+            long[] bucket = buckets.computeIfAbsent(expense.category(), k -> new long[2]);
+            bucket[0] += expense.amountCents();
+            bucket[1]++;
+        }
+        return buckets;
+    }
+}
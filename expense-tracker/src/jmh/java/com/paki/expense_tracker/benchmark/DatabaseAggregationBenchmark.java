@@ -0,0 +1,106 @@
+package com.paki.expense_tracker.benchmark;
+
+import com.paki.expense_tracker.dto.BudgetSpending;
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import com.paki.expense_tracker.service.DashboardQueryService;
+import com.paki.expense_tracker.service.ExpenseBatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The same aggregations as they run now, against H2: straight off the expense table versus the rollup.
+// budgetsWithSpending calls the service behind its cache, so every call does the work.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DatabaseAggregationBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseRepository expenseRepository;
+    private SpendingRollupRepository spendingRollupRepository;
+    private DashboardQueryService dashboardQueryService;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        context = SyntheticExpenses.startApplication("aggregation-" + rows);
+        expenseRepository = context.getBean(ExpenseRepository.class);
+        spendingRollupRepository = context.getBean(SpendingRollupRepository.class);
+        dashboardQueryService = AopTestUtils.getUltimateTargetObject(context.getBean(DashboardQueryService.class));
+
+        User user = new User();
+        user.setName("Benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("x");
+        userId = context.getBean(UserRepository.class).save(user).getId();
+        for (String category : SyntheticExpenses.CATEGORIES) {
+            Budget budget = new Budget();
+            budget.setCategory(context.getBean(CategoryService.class).resolve(userId, Category.named(category)));
+            budget.setAmountCents(500_000);
+            budget.setUser(user);
+            context.getBean(BudgetRepository.class).save(budget);
+        }
+        context.getBean(ExpenseBatchService.class)
+                .ingest(userId, new ByteArrayInputStream(SyntheticExpenses.ndjson(rows)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SpendingSummary totalFromExpenses() {
+        return expenseRepository.summarizeByUserId(userId);
+    }
+
+    @Benchmark
+    public SpendingSummary totalFromRollup() {
+        return spendingRollupRepository.summarizeByUserId(userId);
+    }
+
+    @Benchmark
+    public List<CategoryTotal> categoryStatsFromExpenses() {
+        return expenseRepository.totalsByCategory(userId);
+    }
+
+    @Benchmark
+    public List<CategoryTotal> categoryStatsFromRollup() {
+        return spendingRollupRepository.totalsByCategory(userId);
+    }
+
+    @Benchmark
+    public List<BudgetSpending> budgetsWithSpending() {
+        return dashboardQueryService.budgetsWithSpending(userId);
+    }
+}
@@ -0,0 +1,120 @@
+package com.paki.expense_tracker.benchmark;
+
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import com.paki.expense_tracker.service.ExpenseBatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Requests through the full MVC and security stack against H2, without the network.
+// Dashboard reads are served from the cache after the first call, as they are in production.
+// Add -prof gc for bytes allocated per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockMvcBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long userId;
+    private String etag;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = SyntheticExpenses.startApplication("mockmvc-" + rows);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+
+        User user = new User();
+        user.setName("Benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("x");
+        userId = context.getBean(UserRepository.class).save(user).getId();
+        for (String category : SyntheticExpenses.CATEGORIES) {
+            Budget budget = new Budget();
+            budget.setCategory(context.getBean(CategoryService.class).resolve(userId, Category.named(category)));
+            budget.setAmountCents(500_000);
+            budget.setUser(user);
+            context.getBean(BudgetRepository.class).save(budget);
+        }
+        context.getBean(ExpenseBatchService.class)
+                .ingest(userId, new ByteArrayInputStream(SyntheticExpenses.ndjson(rows)));
+        etag = perform(get("/api/expenses/{userId}/total", userId)).getHeader(HttpHeaders.ETAG);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int total() throws Exception {
+        return perform(get("/api/expenses/{userId}/total", userId)).getContentLength();
+    }
+
+    @Benchmark
+    public int totalNotModified() throws Exception {
+        return perform(get("/api/expenses/{userId}/total", userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .getStatus();
+    }
+
+    @Benchmark
+    public int categoryStats() throws Exception {
+        return perform(get("/api/expenses/{userId}/category-stats", userId)).getContentLength();
+    }
+
+    @Benchmark
+    public int budgetsWithSpending() throws Exception {
+        return perform(get("/api/budgets/{userId}/with-spending", userId)).getContentLength();
+    }
+
+    @Benchmark
+    public int oneMonth() throws Exception {
+        // An uncached list read: query projection plus serialization
+        return perform(get("/api/expenses/{userId}/date-range", userId)
+                .param("startDate", "2023-03-01").param("endDate", "2023-03-31")).getContentLength();
+    }
+
+    @Benchmark
+    public int firstPage() throws Exception {
+        return perform(get("/api/expenses/{userId}/page", userId)).getContentLength();
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,62 @@
+package com.paki.expense_tracker.benchmark;
+
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.entity.Expense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Writing an expense list as JSON, which every list endpoint does: entities (as the endpoints used to)
+// against response records, with and without Blackbird. Add -prof gc for bytes allocated per list:
+//   mvn -Pjmh -DskipTests verify -Djmh.args="SerializationBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int rows;
+
+    @Param({"reflection", "blackbird"})
+    private String access;
+
+    private ObjectMapper objectMapper;
+    private List<Expense> expenses;
+    private List<ExpenseResponse> responses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = access.equals("blackbird")
+                ? JsonMapper.builder().addModule(new BlackbirdModule()).build()
+                : JsonMapper.builder().build();
+        expenses = SyntheticExpenses.expenses(rows);
+        responses = expenses.stream().map(ExpenseResponse::of).toList();
+    }
+
+    @Benchmark
+    public byte[] writeExpenseList() {
+        return objectMapper.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] writeResponseList() {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+}
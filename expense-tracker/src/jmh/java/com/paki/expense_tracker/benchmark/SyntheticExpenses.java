@@ -0,0 +1,91 @@
+package com.paki.expense_tracker.benchmark;
+
+import com.paki.expense_tracker.ExpenseTrackerApplication;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic expense data shared by the benchmarks
+final class SyntheticExpenses {
+
+    static final String[] CATEGORIES = {"food", "transport", "bills", "shopping", "health", "entertainment", "education", "other"};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+
+    private SyntheticExpenses() {
+    }
+
+    // One synthetic expense: the amount both as the old double and as cents
+    record Row(String category, double amount, long amountCents) {
+    }
+
+    static List<Row> rows(int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long cents = random.nextLong(1, 100_000);
+            rows.add(new Row(CATEGORIES[random.nextInt(CATEGORIES.length)], cents / 100.0, cents));
+        }
+        return rows;
+    }
+
+    static List<Expense> expenses(int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        // Shared category objects, as loaded rows would share them
+        Category[] categories = new Category[CATEGORIES.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = Category.named(CATEGORIES[i]);
+            categories[i].setId(i + 1);
+        }
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense();
+            expense.setId((long) i + 1);
+            expense.setDescription("Expense " + i);
+            expense.setCategory(categories[random.nextInt(CATEGORIES.length)]);
+            expense.setAmountCents(random.nextLong(1, 100_000));
+            expense.setCurrency("USD");
+            expense.setDate(FIRST_DAY.plusDays(random.nextInt(730)));
+            expense.setCreatedAt(createdAt);
+            expense.setUpdatedAt(createdAt);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+
+    // The same data as NDJSON, ready for the batch import endpoint
+    static byte[] ndjson(int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        StringBuilder body = new StringBuilder(count * 100);
+        for (int i = 0; i < count; i++) {
+            long cents = random.nextLong(1, 100_000);
+            body.append("{\"description\":\"Expense ").append(i)
+                    .append("\",\"category\":\"").append(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .append("\",\"amount\":").append(cents / 100).append('.').append(String.format("%02d", cents % 100))
+                    .append(",\"date\":\"").append(FIRST_DAY.plusDays(random.nextInt(730)))
+                    .append("\"}\n");
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // The application on its own in-memory H2 database, on a random port
+    static ConfigurableApplicationContext startApplication(String databaseName) {
+        return new SpringApplicationBuilder(ExpenseTrackerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        // A benchmark is one client sending as fast as it can
+                        "rate-limit.enabled=false")
+                .run();
+    }
+}
@@ -0,0 +1,36 @@
+package com.paki.expense_tracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Per-user dashboard reads, all keyed by userId
+    public static final String EXPENSES = "expenses";
+    public static final String SPENDING_TOTALS = "spendingTotals";
+    public static final String CATEGORY_STATS = "categoryStats";
+    public static final String BUDGETS_WITH_SPENDING = "budgetsWithSpending";
+    // Per-user data version behind the ETags
+    public static final String DATA_VERSIONS = "dataVersions";
+    // Category lookups, keyed by user and normalized name
+    public static final String CATEGORIES = "categories";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.dashboard.spec:maximumSize=10000,expireAfterWrite=5m,recordStats}") String spec
+    ) {
+        // Bounded Caffeine caches; evictions inside a transaction wait for the commit
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                EXPENSES, SPENDING_TOTALS, CATEGORY_STATS, BUDGETS_WITH_SPENDING, DATA_VERSIONS, CATEGORIES);
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,84 @@
+package com.paki.expense_tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Read/write split: @Transactional(readOnly = true) work runs on a replica pool, everything else on the
+// primary. Off by default; without it Boot builds the single spring.datasource pool as before.
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Value("${datasource.replica.sticky-window-ms:5000}")
+    private long stickyWindowMillis;
+
+    // Sized by spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+
+    // Sized by datasource.replica.hikari.*; credentials default to the primary's
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.replica.password:${spring.datasource.password:}}") String password
+    ) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // What JPA, JdbcTemplate and the transaction manager see. The physical connection is only chosen
+    // once the transaction has marked it read-only or not, so the decision costs no extra round trip.
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica
+    ) {
+        AbstractRoutingDataSource reads = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return ReadYourWritesFilter.primaryRequired() ? PRIMARY : REPLICA;
+            }
+        };
+        reads.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        reads.setDefaultTargetDataSource(replica);
+        reads.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(reads);
+        return dataSource;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(Duration.ofMillis(stickyWindowMillis)));
+    }
+}
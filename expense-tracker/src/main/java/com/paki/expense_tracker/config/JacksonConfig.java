@@ -0,0 +1,16 @@
+package com.paki.expense_tracker.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.module.blackbird.BlackbirdModule;
+
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public JacksonModule blackbirdModule() {
+        // Property access through generated lambdas instead of reflective calls; picked up by the auto-configured mapper
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,88 @@
+package com.paki.expense_tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Per-user rate limit on the /api/{expenses,budgets,users}/{userId}/... endpoints, one bucket per endpoint class.
+// Requests without a user id in the path (register, login) are left to their own limits.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass { READ, WRITE, EXPORT }
+
+    private static final Pattern USER_PATH = Pattern.compile("^/api/(?:expenses|budgets|users)/(\\d+)(/.*)?$");
+    private static final Pattern EXPORT_FILE = Pattern.compile("^/exports/[^/]+/file$");
+
+    private final Map<EndpointClass, TokenBucketRateLimiter> limiters;
+    private final Map<EndpointClass, Counter> allowed = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    public RateLimitFilter(Map<EndpointClass, TokenBucketRateLimiter> limiters, MeterRegistry meterRegistry) {
+        this.limiters = new EnumMap<>(limiters);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String tag = endpointClass.name().toLowerCase();
+            allowed.put(endpointClass, Counter.builder("ratelimit.requests")
+                    .description("Requests checked against the per-user rate limit")
+                    .tags("class", tag, "outcome", "allowed")
+                    .register(meterRegistry));
+            rejected.put(endpointClass, Counter.builder("ratelimit.requests")
+                    .description("Requests checked against the per-user rate limit")
+                    .tags("class", tag, "outcome", "rejected")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Matcher matcher = USER_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        // CORS preflights are not counted
+        if (!matcher.matches() || "OPTIONS".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        EndpointClass endpointClass = classify(request.getMethod(), matcher.group(2));
+        long waitNanos = limiters.get(endpointClass).tryAcquire(matcher.group(1) + ":" + endpointClass);
+        if (waitNanos == 0) {
+            allowed.get(endpointClass).increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        rejected.get(endpointClass).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests. Please try again in "
+                + retryAfterSeconds + " seconds.\"}");
+    }
+
+    static EndpointClass classify(String method, String rest) {
+        // Starting a background export costs as much as a full download
+        if ("POST".equals(method) && "/exports".equals(rest)) {
+            return EndpointClass.EXPORT;
+        }
+        if (!"GET".equals(method)) {
+            return EndpointClass.WRITE;
+        }
+        // Full-history downloads are the expensive reads, whether built inline or by an export job
+        if ("/all".equals(rest) || (rest != null && EXPORT_FILE.matcher(rest).matches())) {
+            return EndpointClass.EXPORT;
+        }
+        return EndpointClass.READ;
+    }
+}
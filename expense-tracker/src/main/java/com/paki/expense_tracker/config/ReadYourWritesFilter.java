@@ -0,0 +1,88 @@
+package com.paki.expense_tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Read-your-writes for the replica routing: a user who just changed something reads from the primary
+// until the replica has had time to catch up. Writers are remembered per instance, so behind a load
+// balancer this holds for as long as the user's requests land on the same node.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Pattern USER_PATH = Pattern.compile("^/api/(?:expenses|budgets|users)/(\\d+)(/.*)?$");
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    // User ids seen writing within the window
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    // Whether read-only work on this thread has to use the primary
+    static boolean primaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    // Runs work with read-only transactions on the primary. For loads stamped with the current data
+    // version, such as snapshots, search indexes and exports, which a lagging replica would leave stale.
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            } else {
+                PRIMARY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Matcher matcher = USER_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        if (!matcher.matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String userId = matcher.group(1);
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+        PRIMARY.set(write || recentWriters.getIfPresent(userId) != null);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PRIMARY.remove();
+            // The window runs from the end of the write, not its start
+            if (write) {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        }
+    }
+
+    // Async writes finish on the dispatch back to the container; that restarts the window too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
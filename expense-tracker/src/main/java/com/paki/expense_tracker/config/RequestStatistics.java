@@ -0,0 +1,75 @@
+package com.paki.expense_tracker.config;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+
+// Hibernate work done by the current request, counted on the request thread.
+// Hibernate's own statistics stay global; these hooks add to the open request, if any.
+public final class RequestStatistics {
+
+    static final int STATEMENTS = 0;
+    static final int EXECUTIONS = 1;
+    static final int ENTITIES = 2;
+    static final int COLLECTIONS = 3;
+
+    private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+    private RequestStatistics() {
+    }
+
+    static void begin() {
+        CURRENT.set(new long[4]);
+    }
+
+    // The counters since begin(), or null when this thread has no request open
+    static long[] end() {
+        long[] counters = CURRENT.get();
+        CURRENT.remove();
+        return counters;
+    }
+
+    private static void add(int counter) {
+        long[] counters = CURRENT.get();
+        if (counters != null) {
+            counters[counter]++;
+        }
+    }
+
+    // One per session, through hibernate.session.events.auto
+    public static class Statements implements SessionEventListener {
+
+        @Override
+        public void jdbcPrepareStatementEnd() {
+            add(STATEMENTS);
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            add(EXECUTIONS);
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            add(EXECUTIONS);
+        }
+    }
+
+    // Plugged in through hibernate.integrator_provider
+    public static class Loads implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            sessionFactory.getEventListenerRegistry().appendListeners(EventType.POST_LOAD,
+                    (PostLoadEventListener) event -> add(ENTITIES));
+            sessionFactory.getEventListenerRegistry().appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> add(COLLECTIONS));
+        }
+    }
+}
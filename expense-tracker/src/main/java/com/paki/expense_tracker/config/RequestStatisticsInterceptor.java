@@ -0,0 +1,59 @@
+package com.paki.expense_tracker.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Records the Hibernate work of each controller call as hibernate.request.* summaries, tagged by handler
+class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    RequestStatisticsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async redispatch only writes the result; the work was counted on the first dispatch
+        if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            RequestStatistics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(handler);
+    }
+
+    private void record(Object handler) {
+        long[] counters = RequestStatistics.end();
+        if (counters == null) {
+            return;
+        }
+        String name = MetricsConfig.handlerName(handler);
+        summary("hibernate.request.statements", "JDBC statements prepared", name).record(counters[RequestStatistics.STATEMENTS]);
+        summary("hibernate.request.executions", "JDBC statements and batches executed", name).record(counters[RequestStatistics.EXECUTIONS]);
+        summary("hibernate.request.entities", "Entities loaded or fetched", name).record(counters[RequestStatistics.ENTITIES]);
+        summary("hibernate.request.collections", "Collections loaded or fetched", name).record(counters[RequestStatistics.COLLECTIONS]);
+    }
+
+    private DistributionSummary summary(String metric, String description, String handler) {
+        return DistributionSummary.builder(metric)
+                .description(description)
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10_000.0)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package com.paki.expense_tracker.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,14 +11,31 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 public class SecurityConfig {
 
+    @Value("${rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+    @Value("${rate-limit.read.capacity:60}")
+    private long readCapacity;
+    @Value("${rate-limit.read.per-second:20}")
+    private double readPerSecond;
+    @Value("${rate-limit.write.capacity:30}")
+    private long writeCapacity;
+    @Value("${rate-limit.write.per-second:5}")
+    private double writePerSecond;
+    @Value("${rate-limit.export.capacity:3}")
+    private long exportCapacity;
+    @Value("${rate-limit.export.per-second:0.1}")
+    private double exportPerSecond;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, MeterRegistry meterRegistry) throws Exception {
     // Basic security setup: no CSRF, CORS enabled, allow all requests
         http
                 .csrf(csrf -> csrf.disable())
@@ -24,10 +43,23 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().permitAll()
                 );
+        if (rateLimitEnabled) {
+            // Part of the security chain rather than a filter bean, so it runs exactly once and after CORS
+            http.addFilterAfter(rateLimitFilter(meterRegistry), CorsFilter.class);
+        }
 
         return http.build();
     }
 
+    private RateLimitFilter rateLimitFilter(MeterRegistry meterRegistry) {
+        // Per-user token buckets; exports get a small bucket of their own
+        return new RateLimitFilter(Map.of(
+                RateLimitFilter.EndpointClass.READ, new TokenBucketRateLimiter(readCapacity, readPerSecond),
+                RateLimitFilter.EndpointClass.WRITE, new TokenBucketRateLimiter(writeCapacity, writePerSecond),
+                RateLimitFilter.EndpointClass.EXPORT, new TokenBucketRateLimiter(exportCapacity, exportPerSecond)
+        ), meterRegistry);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         // Allow local dev origins and common HTTP methods
@@ -49,8 +81,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // BCrypt for password hashing
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        // BCrypt for password hashing; existing hashes are upgraded on login when the cost changes
+        return new BCryptPasswordEncoder(strength);
     }
 }
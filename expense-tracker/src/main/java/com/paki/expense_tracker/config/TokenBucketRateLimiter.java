@@ -0,0 +1,56 @@
+package com.paki.expense_tracker.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token buckets keyed by string, updated lock-free.
+// Each bucket is one AtomicLong holding the time at which it will be full again: taking a token pushes that
+// time out by one refill interval, and a request is refused when that would put it more than `capacity`
+// intervals ahead of now. This is the same arithmetic as counting tokens, in a single word a CAS can update.
+public class TokenBucketRateLimiter {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final LongSupplier nanoClock;
+    // A bucket left alone until it is full again holds no state worth keeping, so idle ones can be dropped
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(long capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long capacity, double tokensPerSecond, LongSupplier nanoClock) {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit needs a capacity of at least 1 and a positive rate");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofNanos(Math.max(capacity * nanosPerToken, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    // 0 if a token was taken, otherwise how many nanoseconds until one will be available
+    public long tryAcquire(String key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long wait = next - now - capacity * nanosPerToken;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
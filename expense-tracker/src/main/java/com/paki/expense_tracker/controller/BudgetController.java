@@ -1,18 +1,26 @@
 package com.paki.expense_tracker.controller;
 
+import com.paki.expense_tracker.dto.BudgetResponse;
+import com.paki.expense_tracker.dto.BudgetSpending;
+import com.paki.expense_tracker.dto.Money;
 import com.paki.expense_tracker.entity.Budget;
-import com.paki.expense_tracker.entity.Expense;
-import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.entity.BudgetAlert;
+import com.paki.expense_tracker.entity.Category;
 import com.paki.expense_tracker.repository.BudgetRepository;
-import com.paki.expense_tracker.repository.ExpenseRepository;
-import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.BudgetAlertService;
+import com.paki.expense_tracker.service.BudgetService;
+import com.paki.expense_tracker.service.DashboardQueryService;
+import com.paki.expense_tracker.service.DataVersionService;
+import com.paki.expense_tracker.service.UserExistenceCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/budgets")
@@ -20,90 +28,97 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:5173")
 public class BudgetController {
 
+    private static final int MAX_POLL_SECONDS = 60;
+
     private final BudgetRepository budgetRepository;
-    private final UserRepository userRepository;
-    private final ExpenseRepository expenseRepository;
+    private final BudgetService budgetService;
+    private final BudgetAlertService budgetAlertService;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final UserExistenceCache userExistenceCache;
 
     @PostMapping("/{userId}")
-    public ResponseEntity<Budget> setBudget(
+    public ResponseEntity<?> setBudget(
             @PathVariable Long userId,
             @RequestBody Budget budget
     ) {
-                // Find the user owning this budget
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                // Make sure the user owning this budget exists
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        String error = Category.nameError(budget.getCategory());
+        if (error == null) {
+            error = Money.currencyError(budget.getCurrency());
+        }
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", error));
+        }
         
                 // Update existing budget for the same category if present
-        Optional<Budget> existing = budgetRepository.findByUserAndCategory(user, budget.getCategory());
+        Optional<Budget> existing = budgetService.updateCategory(userId, budget.getCategory(), budget.getAmountCents());
         if (existing.isPresent()) {
-            Budget existingBudget = existing.get();
-            existingBudget.setAmount(budget.getAmount());
-            return ResponseEntity.ok(budgetRepository.save(existingBudget));
+            return ResponseEntity.ok(BudgetResponse.of(existing.get()));
         }
         
                 // Create a new budget for this user and category
-        budget.setUser(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(budgetRepository.save(budget));
+        Budget saved = budgetService.add(userId, budget);
+        return ResponseEntity.status(HttpStatus.CREATED).body(BudgetResponse.of(saved));
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<List<Budget>> getBudgets(@PathVariable Long userId) {
+    public ResponseEntity<List<BudgetResponse>> getBudgets(@PathVariable Long userId, WebRequest request) {
                 // Return all budgets for a user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Budget> budgets = budgetRepository.findByUser(user);
-        return ResponseEntity.ok(budgets);
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<BudgetResponse> budgets = budgetRepository.findResponsesByUserId(userId);
+        return withETag(etag, budgets);
     }
 
     @GetMapping("/{userId}/with-spending")
-    public ResponseEntity<List<Map<String, Object>>> getBudgetsWithSpending(@PathVariable Long userId) {
+    public ResponseEntity<List<BudgetSpending>> getBudgetsWithSpending(@PathVariable Long userId, WebRequest request) {
         // Enrich budgets with spending totals and derived stats
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<Budget> budgets = budgetRepository.findByUser(user);
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        
-        List<Map<String, Object>> response = budgets.stream()
-                .map(budget -> {
-                    Map<String, Object> data = new HashMap<>();
-                    double spent = expenses.stream()
-                            .filter(e -> e.getCategory().equals(budget.getCategory()))
-                            .mapToDouble(Expense::getAmount)
-                            .sum();
-                    
-                    data.put("id", budget.getId());
-                    data.put("category", budget.getCategory());
-                    data.put("amount", budget.getAmount());
-                    data.put("spent", spent);
-                    data.put("remaining", budget.getAmount() - spent);
-                    data.put("percentage", (spent / budget.getAmount()) * 100);
-                    
-                    return data;
-                })
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return withETag(etag, dashboardQueryService.budgetsWithSpending(userId));
+    }
+
+    @GetMapping("/{userId}/alerts")
+    public DeferredResult<List<BudgetAlert>> pollAlerts(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "25") int timeout
+    ) {
+        // Long-poll: alerts with an id above `after`, waiting up to `timeout` seconds for the next one
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        int seconds = Math.max(0, Math.min(timeout, MAX_POLL_SECONDS));
+        return budgetAlertService.poll(userId, after, seconds * 1000L);
     }
 
     @PutMapping("/{userId}/{budgetId}")
-    public ResponseEntity<Budget> updateBudget(
+    public ResponseEntity<?> updateBudget(
             @PathVariable Long userId,
             @PathVariable Long budgetId,
             @RequestBody Budget budgetDetails
     ) {
-        // Ensure budget belongs to the user before updating
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Budget budget = budgetRepository.findById(budgetId)
-                .orElseThrow(() -> new RuntimeException("Budget not found"));
-        
-        if (!budget.getUser().getId().equals(userId)) {
+        String currencyError = Money.currencyError(budgetDetails.getCurrency());
+        if (currencyError != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", currencyError));
+        }
+        // Ownership is part of the lookup; fall back to an existence check only on a miss
+        Optional<Budget> updated = budgetService.update(userId, budgetId, budgetDetails.getAmountCents());
+        if (updated.isEmpty()) {
+            if (!budgetRepository.existsById(budgetId)) {
+                throw new RuntimeException("Budget not found");
+            }
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        
-        budget.setAmount(budgetDetails.getAmount());
-        return ResponseEntity.ok(budgetRepository.save(budget));
+        return ResponseEntity.ok(BudgetResponse.of(updated.get()));
     }
 
     @DeleteMapping("/{userId}/{budgetId}")
@@ -111,17 +126,31 @@ public class BudgetController {
             @PathVariable Long userId,
             @PathVariable Long budgetId
     ) {
-        // Ensure budget belongs to the user before deleting
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Budget budget = budgetRepository.findById(budgetId)
-                .orElseThrow(() -> new RuntimeException("Budget not found"));
-        
-        if (!budget.getUser().getId().equals(userId)) {
+        // Ownership is part of the delete; fall back to an existence check only on a miss
+        if (!budgetService.delete(userId, budgetId)) {
+            if (!budgetRepository.existsById(budgetId)) {
+                throw new RuntimeException("Budget not found");
+            }
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        
-        budgetRepository.delete(budget);
         return ResponseEntity.noContent().build();
     }
+
+    private String currentETag(Long userId) {
+        // The version lookup doubles as the user-existence check
+        Long version = dataVersionService.current(userId);
+        if (version == null) {
+            throw new RuntimeException("User not found");
+        }
+        return DataVersionService.etag(userId, version);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private static <T> ResponseEntity<T> withETag(String etag, T body) {
+        // Clients may keep the response but must revalidate it on every use
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
 }
@@ -1,18 +1,54 @@
 package com.paki.expense_tracker.controller;
 
+import com.paki.expense_tracker.dto.BatchResult;
+import com.paki.expense_tracker.dto.CategoryStat;
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.ExpenseCursor;
+import com.paki.expense_tracker.dto.ExpensePage;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.ExportStatus;
+import com.paki.expense_tracker.dto.Money;
+import com.paki.expense_tracker.dto.RollupDrift;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.dto.SpendingTrends;
+import com.paki.expense_tracker.entity.Category;
 import com.paki.expense_tracker.entity.Expense;
-import com.paki.expense_tracker.entity.User;
 import com.paki.expense_tracker.repository.ExpenseRepository;
-import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import com.paki.expense_tracker.service.DashboardQueryService;
+import com.paki.expense_tracker.service.DataVersionService;
+import com.paki.expense_tracker.service.ExpenseBatchService;
+import com.paki.expense_tracker.service.ExpenseExportService;
+import com.paki.expense_tracker.service.ExpenseSearchService;
+import com.paki.expense_tracker.service.ExpenseSnapshotService;
+import com.paki.expense_tracker.service.ExpenseService;
+import com.paki.expense_tracker.service.ExportJobService;
+import com.paki.expense_tracker.service.SingleFlight;
+import com.paki.expense_tracker.service.SpendingRollupService;
+import com.paki.expense_tracker.service.TrendService;
+import com.paki.expense_tracker.service.UserExistenceCache;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/expenses")
@@ -20,130 +56,343 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:5173")
 public class ExpenseController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_TREND_MONTHS = 36;
+    // Set by Tomcat when the connector can send a file straight from disk to the socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
     private final ExpenseRepository expenseRepository;
-    private final UserRepository userRepository;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final ExpenseService expenseService;
+    private final SpendingRollupService spendingRollupService;
+    private final UserExistenceCache userExistenceCache;
+    private final ExpenseExportService expenseExportService;
+    private final ExpenseBatchService expenseBatchService;
+    private final TrendService trendService;
+    private final SingleFlight singleFlight;
+    private final CategoryService categoryService;
+    private final ExpenseSnapshotService expenseSnapshotService;
+    private final ExportJobService exportJobService;
+    private final ExpenseSearchService expenseSearchService;
 
     @PostMapping("/{userId}")
-    public ResponseEntity<Expense> addExpense(
+    public ResponseEntity<?> addExpense(
             @PathVariable Long userId,
             @RequestBody Expense expense
     ) {
         // Attach the expense to the user and save
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        expense.setUser(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(expenseRepository.save(expense));
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        String error = Category.nameError(expense.getCategory());
+        if (error == null) {
+            error = Money.currencyError(expense.getCurrency());
+        }
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", error));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(ExpenseResponse.of(expenseService.add(userId, expense)));
+    }
+
+    @PostMapping(value = "/{userId}/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> addExpenses(
+            @PathVariable Long userId,
+            InputStream body
+    ) {
+        // Bulk import from a JSON array or NDJSON stream, inserted in JDBC batches
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        try {
+            BatchResult result = expenseBatchService.ingest(userId, body);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", e.getMessage()));
+        }
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<List<Expense>> getExpenses(@PathVariable Long userId) {
+    public ResponseEntity<List<ExpenseResponse>> getExpenses(@PathVariable Long userId, WebRequest request) {
                 // Return all expenses for a user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        return ResponseEntity.ok(expenses);
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<ExpenseResponse> expenses = dashboardQueryService.expenses(userId);
+        return withETag(etag, expenses);
+    }
+
+    @GetMapping("/{userId}/page")
+    public ResponseEntity<?> getExpensePage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request
+    ) {
+        // Keyset pagination on (date, id), newest first
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<ExpenseResponse> expenses;
+        if (cursor == null || cursor.isBlank()) {
+            expenses = expenseRepository.findFirstPage(userId, limit);
+        } else {
+            ExpenseCursor position;
+            try {
+                position = ExpenseCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("message", "Invalid cursor."));
+            }
+            expenses = expenseRepository.findPageAfter(userId, position.date(), position.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (expenses.size() > pageSize) {
+            expenses = expenses.subList(0, pageSize);
+            ExpenseResponse last = expenses.get(pageSize - 1);
+            nextCursor = new ExpenseCursor(last.date(), last.id()).encode();
+        }
+        return withETag(etag, new ExpensePage(expenses, nextCursor));
     }
 
     @GetMapping("/{userId}/all")
-    public ResponseEntity<List<Expense>> getAllExpenses(@PathVariable Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        return ResponseEntity.ok(expenses);
+    public ResponseEntity<StreamingResponseBody> exportExpenses(@PathVariable Long userId) {
+        // Stream every expense as NDJSON without holding the list in memory
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        StreamingResponseBody body = out -> expenseExportService.writeNdjson(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @PostMapping("/{userId}/exports")
+    public ResponseEntity<?> startExport(@PathVariable Long userId) {
+        // Full history as gzipped CSV, built in the background; a running or still-current job is reused
+        try {
+            ExportStatus export = exportJobService.start(userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(export);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("message", "Too many exports in progress. Please try again later."));
+        }
+    }
+
+    @GetMapping("/{userId}/exports/{exportId}")
+    public ResponseEntity<?> getExport(@PathVariable Long userId, @PathVariable String exportId) {
+        // Progress of an export; its file is at .../file once the status is DONE
+        Optional<ExportStatus> export = exportJobService.status(userId, exportId);
+        if (export.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Export not found."));
+        }
+        return ResponseEntity.ok(export.get());
+    }
+
+    @GetMapping("/{userId}/exports/{exportId}/file")
+    public ResponseEntity<StreamingResponseBody> downloadExport(
+            @PathVariable Long userId,
+            @PathVariable String exportId,
+            HttpServletRequest request
+    ) throws IOException {
+        Optional<Path> file = exportJobService.file(userId, exportId);
+        // Unknown, someone else's, or not finished
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long size = Files.size(file.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(GZIP)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("expenses-" + userId + ".csv.gz").build().toString());
+        // Zero-copy: Tomcat sends the file itself after the response headers
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.get().toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return response.build();
+        }
+        StreamingResponseBody body = out -> exportJobService.transferTo(file.get(), out);
+        return response.body(body);
     }
 
     @GetMapping("/{userId}/by-category/{category}")
-    public ResponseEntity<List<Expense>> getExpensesByCategory(
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByCategory(
             @PathVariable Long userId,
-            @PathVariable String category
+            @PathVariable String category,
+            WebRequest request
     ) {
-        // Filter expenses by category (case-insensitive)
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user)
-                .stream()
-                .filter(e -> e.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(expenses);
+        // Filter expenses by category (case- and whitespace-insensitive)
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        // Any spelling of the name finds the category; after that the filter is on its id
+        Category found = categoryService.find(userId, category);
+        if (found == null) {
+            return withETag(etag, List.of());
+        }
+        // Identical concurrent reads (same data version) share one query
+        List<ExpenseResponse> expenses = singleFlight.run(etag + ":category:" + found.getId(),
+                () -> expenseRepository.findResponsesByUserIdAndCategoryId(userId, found.getId()));
+        return withETag(etag, expenses);
     }
 
     @GetMapping("/{userId}/date-range")
-    public ResponseEntity<List<Expense>> getExpensesByDateRange(
+    public ResponseEntity<List<ExpenseResponse>> getExpensesByDateRange(
             @PathVariable Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest request
     ) {
         // Filter expenses between the given dates
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user)
-                .stream()
-                .filter(e -> !e.getDate().isBefore(startDate) && !e.getDate().isAfter(endDate))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(expenses);
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<ExpenseResponse> expenses = singleFlight.run(etag + ":range:" + startDate + ":" + endDate,
+                () -> expenseRepository.findResponsesByUserIdAndDateBetween(userId, startDate, endDate));
+        return withETag(etag, expenses);
+    }
+
+    @GetMapping("/{userId}/search")
+    public ResponseEntity<?> searchExpenses(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest request
+    ) {
+        // Expenses whose description has a word starting with each word of q, newest first;
+        // optionally within a category and between dates (either end may be open)
+        String[] terms = ExpenseSearchService.terms(q);
+        if (terms.length == 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Search query is required."));
+        }
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        Integer categoryId = null;
+        if (category != null && !category.isBlank()) {
+            Category found = categoryService.find(userId, category);
+            if (found == null) {
+                return withETag(etag, List.of());
+            }
+            categoryId = found.getId();
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return withETag(etag, expenseSearchService.search(userId, terms, categoryId, startDate, endDate, limit));
     }
 
     @GetMapping("/{userId}/total")
-    public ResponseEntity<Map<String, Object>> getTotalSpending(@PathVariable Long userId) {
-        // Aggregate total, count, and average spending
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        double total = expenses.stream().mapToDouble(Expense::getAmount).sum();
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("total", total);
-        response.put("count", expenses.size());
-        response.put("average", expenses.isEmpty() ? 0 : total / expenses.size());
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getTotalSpending(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest request
+    ) {
+        // Aggregate total, count, and average spending, all time or between two dates
+        if ((startDate == null) != (endDate == null)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "startDate and endDate go together."));
+        }
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        // All time comes from the rollup; a range is scanned from the user's snapshot (or SQL while cold)
+        SpendingSummary summary = startDate == null
+                ? dashboardQueryService.spendingTotals(userId)
+                : expenseSnapshotService.summary(userId, startDate, endDate);
+        return withETag(etag, summary);
     }
 
     @GetMapping("/{userId}/category-stats")
-    public ResponseEntity<Map<String, Object>> getCategoryStats(@PathVariable Long userId) {
-        // Aggregate spending by category
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        
-        Map<String, Object> categoryStats = new HashMap<>();
-        expenses.stream()
-                .collect(Collectors.groupingBy(Expense::getCategory, 
-                    Collectors.summingDouble(Expense::getAmount)))
-                .forEach((category, total) -> {
-                    Map<String, Object> stat = new HashMap<>();
-                    stat.put("total", total);
-                    stat.put("count", expenses.stream()
-                            .filter(e -> e.getCategory().equals(category))
-                            .count());
-                    categoryStats.put(category, stat);
-                });
-        
-        return ResponseEntity.ok(categoryStats);
+    public ResponseEntity<?> getCategoryStats(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest request
+    ) {
+        // Aggregate spending by category, all time or between two dates
+        if ((startDate == null) != (endDate == null)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "startDate and endDate go together."));
+        }
+        String etag = currentETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        List<CategoryTotal> totals = startDate == null
+                ? dashboardQueryService.categoryTotals(userId)
+                : expenseSnapshotService.categoryTotals(userId, startDate, endDate);
+        // An object keyed by category name
+        Map<String, CategoryStat> categoryStats = new HashMap<>(totals.size() * 2);
+        for (CategoryTotal categoryTotal : totals) {
+            categoryStats.put(categoryTotal.category(), CategoryStat.of(categoryTotal));
+        }
+        return withETag(etag, categoryStats);
+    }
+
+    @GetMapping("/{userId}/trends")
+    public ResponseEntity<SpendingTrends> getTrends(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(defaultValue = "12") int months,
+            @RequestParam(defaultValue = "3") int window
+    ) {
+        // Monthly and per-category series ending at `to` (default: this month), with budget projections.
+        // No ETag: the projection moves with the calendar, not only with the data.
+        // The version lookup doubles as the user-existence check
+        Long version = dataVersionService.current(userId);
+        if (version == null) {
+            throw new RuntimeException("User not found");
+        }
+        LocalDate today = LocalDate.now();
+        int trendMonths = Math.max(1, Math.min(months, MAX_TREND_MONTHS));
+        int averageWindow = Math.max(1, Math.min(window, trendMonths));
+        YearMonth end = to == null ? YearMonth.from(today) : to;
+        String key = DataVersionService.etag(userId, version) + ":trends:" + today + ":" + end + ":"
+                + trendMonths + ":" + averageWindow;
+        return ResponseEntity.ok(singleFlight.run(key,
+                () -> trendService.trends(userId, end, trendMonths, averageWindow, today)));
     }
 
     @PutMapping("/{userId}/{expenseId}")
-    public ResponseEntity<Expense> updateExpense(
+    public ResponseEntity<?> updateExpense(
             @PathVariable Long userId,
             @PathVariable Long expenseId,
             @RequestBody Expense expenseDetails
     ) {
-        // Ensure expense belongs to the user before updating
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new RuntimeException("Expense not found"));
-        
-        if (!expense.getUser().getId().equals(userId)) {
+        String error = Category.nameError(expenseDetails.getCategory());
+        if (error == null) {
+            error = Money.currencyError(expenseDetails.getCurrency());
+        }
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("message", error));
+        }
+        // Ownership is part of the lookup; fall back to an existence check only on a miss
+        Optional<Expense> updated = expenseService.update(userId, expenseId, expenseDetails);
+        if (updated.isEmpty()) {
+            if (!expenseRepository.existsById(expenseId)) {
+                throw new RuntimeException("Expense not found");
+            }
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        
-        expense.setDescription(expenseDetails.getDescription());
-        expense.setCategory(expenseDetails.getCategory());
-        expense.setAmount(expenseDetails.getAmount());
-        expense.setDate(expenseDetails.getDate());
-        
-        return ResponseEntity.ok(expenseRepository.save(expense));
+        return ResponseEntity.ok(ExpenseResponse.of(updated.get()));
     }
 
     @DeleteMapping("/{userId}/{expenseId}")
@@ -151,27 +400,60 @@ public class ExpenseController {
             @PathVariable Long userId,
             @PathVariable Long expenseId
     ) {
-        // Ensure expense belongs to the user before deleting
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Expense expense = expenseRepository.findById(expenseId)
-                .orElseThrow(() -> new RuntimeException("Expense not found"));
-        
-        if (!expense.getUser().getId().equals(userId)) {
+        // Ownership is part of the lookup; fall back to an existence check only on a miss
+        if (!expenseService.delete(userId, expenseId)) {
+            if (!expenseRepository.existsById(expenseId)) {
+                throw new RuntimeException("Expense not found");
+            }
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        
-        expenseRepository.delete(expense);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/{userId}")
     public ResponseEntity<Void> deleteAllExpenses(@PathVariable Long userId) {
                 // Delete all expenses for a user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Expense> expenses = expenseRepository.findByUser(user);
-        expenseRepository.deleteAll(expenses);
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        expenseService.deleteAll(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{userId}/rollup/verify")
+    public ResponseEntity<List<RollupDrift>> verifyRollup(@PathVariable Long userId) {
+        // Compare the spending rollup with the raw expenses; empty means no drift
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return ResponseEntity.ok(spendingRollupService.verify(userId));
+    }
+
+    @PostMapping("/{userId}/rollup/rebuild")
+    public ResponseEntity<Void> rebuildRollup(@PathVariable Long userId) {
+        // Correct the spending rollup wherever it disagrees with the expenses
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        spendingRollupService.rebuild(userId);
         return ResponseEntity.noContent().build();
     }
+
+    private String currentETag(Long userId) {
+        // The version lookup doubles as the user-existence check
+        Long version = dataVersionService.current(userId);
+        if (version == null) {
+            throw new RuntimeException("User not found");
+        }
+        return DataVersionService.etag(userId, version);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private static <T> ResponseEntity<T> withETag(String etag, T body) {
+        // Clients may keep the response but must revalidate it on every use
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
 }
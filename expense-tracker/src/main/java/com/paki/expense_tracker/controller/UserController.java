@@ -1,15 +1,31 @@
 package com.paki.expense_tracker.controller;
 
+import com.paki.expense_tracker.dto.UserResponse;
 import com.paki.expense_tracker.entity.User;
 import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.AccountService;
+import com.paki.expense_tracker.service.DashboardQueryService;
+import com.paki.expense_tracker.service.DataVersionService;
+import com.paki.expense_tracker.service.ExpenseSearchService;
+import com.paki.expense_tracker.service.ExpenseSnapshotService;
+import com.paki.expense_tracker.service.ExportJobService;
+import com.paki.expense_tracker.service.PasswordHashingService;
+import com.paki.expense_tracker.service.UserEventService;
+import com.paki.expense_tracker.service.UserExistenceCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -18,78 +34,125 @@ import java.util.Optional;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserExistenceCache userExistenceCache;
+    private final AccountService accountService;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final UserEventService userEventService;
+    private final ExportJobService exportJobService;
+    private final ExpenseSnapshotService expenseSnapshotService;
+    private final ExpenseSearchService expenseSearchService;
+    // Spring MVC's executor for async request work, resolved by this name
+    private final AsyncTaskExecutor applicationTaskExecutor;
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> register(@RequestBody User user) {
         // Basic validation for required fields
         if (user.getName() == null || user.getName().isBlank()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Name is required."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Name is required.")));
         }
         if (user.getEmail() == null || user.getEmail().isBlank()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Email is required."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Email is required.")));
         }
         if (user.getPassword() == null || user.getPassword().isBlank()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Password is required."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Password is required.")));
         }
         // Prevent duplicate emails
         Optional<User> existing = userRepository.findByEmail(user.getEmail());
         if (existing.isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("message", "Email already registered. Please sign in."));
+            return CompletableFuture.completedFuture(emailTaken());
+        }
+        // Hash the password on the hashing pool, then save on the request executor so that
+        // hashing threads never wait for a database connection
+        try {
+            return passwordHashingService.encode(user.getPassword()).thenApplyAsync(hash -> {
+                user.setPassword(hash);
+                User savedUser;
+                try {
+                    savedUser = userRepository.save(user);
+                } catch (DataIntegrityViolationException e) {
+                    // Another registration took the email while this password was hashing
+                    return emailTaken();
+                }
+                return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                        "id", savedUser.getId(),
+                        "name", savedUser.getName(),
+                        "email", savedUser.getEmail()
+                ));
+            }, applicationTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         }
-        // Hash the password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        User savedUser = userRepository.save(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                "id", savedUser.getId(),
-                "name", savedUser.getName(),
-                "email", savedUser.getEmail()
-        ));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(@RequestBody Map<String, String> credentials) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> login(@RequestBody Map<String, String> credentials) {
         // Validate credentials and return a small user payload
         String email = credentials.get("email");
         String password = credentials.get("password");
 
         if (email == null || email.isBlank() || password == null || password.isBlank()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Email and password are required."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Email and password are required.")));
         }
 
+        // Unknown emails still pay for a hash check so they cannot be told apart by timing
         Optional<User> user = userRepository.findByEmail(email);
-        if (user.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("message", "No account found for this email. Please sign up."));
-        }
-
-        if (user.get().getPassword() != null && passwordEncoder.matches(password, user.get().getPassword())) {
-            return ResponseEntity.ok(Map.of(
-                    "id", user.get().getId(),
-                    "name", user.get().getName(),
-                    "email", user.get().getEmail()
-            ));
+        String encodedPassword = user.map(User::getPassword).orElse(null);
+        try {
+            return passwordHashingService.matches(password, encodedPassword).thenApply(matched -> {
+                if (user.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "No account found for this email. Please sign up."));
+                }
+                if (!matched) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(Map.of("message", "Incorrect password. Please try again."));
+                }
+                passwordHashingService.upgradeIfNeeded(user.get().getId(), password, encodedPassword);
+                return ResponseEntity.ok(Map.of(
+                        "id", user.get().getId(),
+                        "name", user.get().getName(),
+                        "email", user.get().getEmail()
+                ));
+            });
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests();
         }
-
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body(Map.of("message", "Incorrect password. Please try again."));
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<User> getUser(@PathVariable Long userId) {
+    public ResponseEntity<UserResponse> getUser(@PathVariable Long userId) {
         // Lookup user by id
-        return userRepository.findById(userId)
+        return userRepository.findResponseById(userId)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{userId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamEvents(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        // Server-sent change feed; on reconnect, events after Last-Event-ID are replayed or a "reset" is sent
+        if (!userExistenceCache.exists(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        SseEmitter emitter = userEventService.subscribe(userId, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("message", "Too many open event streams for this user."));
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     @PutMapping("/{userId}")
-    public ResponseEntity<User> updateUser(
+    public ResponseEntity<UserResponse> updateUser(
             @PathVariable Long userId,
             @RequestBody User userDetails
     ) {
@@ -108,18 +171,36 @@ public class UserController {
                 }
                 existingUser.setEmail(userDetails.getEmail());
             }
-            return ResponseEntity.ok(userRepository.save(existingUser));
+            return ResponseEntity.ok(UserResponse.of(userRepository.save(existingUser)));
         }
         return ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{userId}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long userId) {
-        // Delete user if present
-        if (userRepository.existsById(userId)) {
-            userRepository.deleteById(userId);
+        // Delete user and everything they own if present
+        if (accountService.deleteUser(userId)) {
+            userExistenceCache.evict(userId);
+            dashboardQueryService.evictExpenseViews(userId);
+            dataVersionService.evict(userId);
+            exportJobService.removeUser(userId);
+            expenseSnapshotService.evict(userId);
+            expenseSearchService.evict(userId);
+            userEventService.removeUser(userId);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
+
+    private static ResponseEntity<Map<String, Object>> emailTaken() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "Email already registered. Please sign in."));
+    }
+
+    private static CompletableFuture<ResponseEntity<Map<String, Object>>> tooManyRequests() {
+        // The hashing pool is saturated; ask the client to back off rather than queue a request thread
+        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", "Too many sign-in attempts right now. Please try again shortly.")));
+    }
 }
@@ -0,0 +1,10 @@
+package com.paki.expense_tracker.dto;
+
+import java.util.List;
+
+// Outcome of a bulk import: rows saved, rows skipped, and why (first few only)
+public record BatchResult(int inserted, int rejected, List<RowError> errors) {
+
+    public record RowError(int index, String message) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.paki.expense_tracker.entity.Budget;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A budget as the API shows it, read straight from a query; money is in cents, shown as a decimal in JSON
+public record BudgetResponse(
+        Long id,
+        String category,
+        @JsonIgnore long amountCents,
+        String currency,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+
+    // For write responses, from the entity that was just saved
+    public static BudgetResponse of(Budget budget) {
+        return new BudgetResponse(budget.getId(),
+                budget.getCategory() == null ? null : budget.getCategory().getName(),
+                budget.getAmountCents(), budget.getCurrency(), budget.getCreatedAt(), budget.getUpdatedAt());
+    }
+
+    @JsonProperty("amount")
+    public BigDecimal amount() {
+        return Money.toDecimal(amountCents);
+    }
+}
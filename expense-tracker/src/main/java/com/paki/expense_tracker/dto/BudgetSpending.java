@@ -0,0 +1,31 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+// A budget with what has been spent against it so far; money is in cents, shown as decimals in JSON
+public record BudgetSpending(
+        Long id,
+        String category,
+        @JsonIgnore long amountCents,
+        @JsonIgnore long spentCents,
+        double percentage
+) {
+
+    @JsonProperty("amount")
+    public BigDecimal amount() {
+        return Money.toDecimal(amountCents);
+    }
+
+    @JsonProperty("spent")
+    public BigDecimal spent() {
+        return Money.toDecimal(spentCents);
+    }
+
+    @JsonProperty("remaining")
+    public BigDecimal remaining() {
+        return Money.toDecimal(amountCents - spentCents);
+    }
+}
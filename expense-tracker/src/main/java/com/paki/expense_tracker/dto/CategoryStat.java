@@ -0,0 +1,19 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+// One entry of the category-stats response, keyed by category name there
+public record CategoryStat(@JsonIgnore long totalCents, long count) {
+
+    public static CategoryStat of(CategoryTotal categoryTotal) {
+        return new CategoryStat(categoryTotal.totalCents(), categoryTotal.count());
+    }
+
+    @JsonProperty("total")
+    public BigDecimal total() {
+        return Money.toDecimal(totalCents);
+    }
+}
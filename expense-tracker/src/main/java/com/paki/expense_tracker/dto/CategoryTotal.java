@@ -0,0 +1,5 @@
+package com.paki.expense_tracker.dto;
+
+// Spending total and expense count for one category
+public record CategoryTotal(Integer categoryId, String category, long totalCents, long count) {
+}
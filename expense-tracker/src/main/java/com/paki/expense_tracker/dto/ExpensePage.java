@@ -0,0 +1,7 @@
+package com.paki.expense_tracker.dto;
+
+import java.util.List;
+
+// One page of expenses plus the cursor for the next page (null on the last page)
+public record ExpensePage(List<ExpenseResponse> items, String nextCursor) {
+}
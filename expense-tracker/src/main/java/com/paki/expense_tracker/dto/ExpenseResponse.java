@@ -0,0 +1,35 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.paki.expense_tracker.entity.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// An expense as the API shows it, read straight from a query; money is in cents, shown as a decimal in JSON
+public record ExpenseResponse(
+        Long id,
+        String description,
+        String category,
+        @JsonIgnore long amountCents,
+        String currency,
+        LocalDate date,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+
+    // For write responses, from the entity that was just saved
+    public static ExpenseResponse of(Expense expense) {
+        return new ExpenseResponse(expense.getId(), expense.getDescription(),
+                expense.getCategory() == null ? null : expense.getCategory().getName(),
+                expense.getAmountCents(), expense.getCurrency(), expense.getDate(),
+                expense.getCreatedAt(), expense.getUpdatedAt());
+    }
+
+    @JsonProperty("amount")
+    public BigDecimal amount() {
+        return Money.toDecimal(amountCents);
+    }
+}
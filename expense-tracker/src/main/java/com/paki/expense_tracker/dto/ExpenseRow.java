@@ -0,0 +1,16 @@
+package com.paki.expense_tracker.dto;
+
+import com.paki.expense_tracker.entity.Expense;
+
+import java.time.LocalDate;
+
+// The columns of an expense that analytics read; no description, currency or user
+public record ExpenseRow(Long id, long amountCents, LocalDate date, Integer categoryId, String category) {
+
+    public static ExpenseRow of(Expense expense) {
+        return expense.getCategory() == null
+                ? new ExpenseRow(expense.getId(), expense.getAmountCents(), expense.getDate(), null, null)
+                : new ExpenseRow(expense.getId(), expense.getAmountCents(), expense.getDate(),
+                        expense.getCategory().getId(), expense.getCategory().getName());
+    }
+}
@@ -0,0 +1,14 @@
+package com.paki.expense_tracker.dto;
+
+import com.paki.expense_tracker.entity.Expense;
+
+import java.time.LocalDate;
+
+// The columns of an expense that search reads: its words and the fields results can be filtered on
+public record ExpenseText(Long id, String description, LocalDate date, Integer categoryId) {
+
+    public static ExpenseText of(Expense expense) {
+        return new ExpenseText(expense.getId(), expense.getDescription(), expense.getDate(),
+                expense.getCategory() == null ? null : expense.getCategory().getId());
+    }
+}
@@ -0,0 +1,26 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+// Where an export job stands; totalRows is counted when the job starts, so progress can stop short of 1 if
+// expenses were deleted meanwhile
+public record ExportStatus(
+        String id,
+        String status,
+        long rows,
+        long totalRows,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt,
+        String error
+) {
+
+    @JsonProperty("progress")
+    public double progress() {
+        if ("DONE".equals(status)) {
+            return 1.0;
+        }
+        return totalRows == 0 ? 0.0 : Math.min(1.0, (double) rows / totalRows);
+    }
+}
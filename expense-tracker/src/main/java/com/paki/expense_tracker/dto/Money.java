@@ -0,0 +1,57 @@
+package com.paki.expense_tracker.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+// Amounts are stored and summed as whole cents (minor units of the currency);
+// decimals only appear when reading or writing JSON.
+// Every amount is in the one ledger currency, so no total ever adds one currency to another.
+public final class Money {
+
+    public static final String DEFAULT_CURRENCY = "USD";
+
+    // Minor units per major unit: 2 for USD cents, 0 for JPY, 3 for KWD
+    private static final int FRACTION_DIGITS = Currency.getInstance(DEFAULT_CURRENCY).getDefaultFractionDigits();
+
+    private Money() {
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(FRACTION_DIGITS).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, FRACTION_DIGITS);
+    }
+
+    // Why a written currency is refused, or null if it is accepted; leaving it out means the ledger currency
+    public static String currencyError(String code) {
+        if (code == null || code.equals(DEFAULT_CURRENCY)) {
+            return null;
+        }
+        if (!isCurrencyCode(code)) {
+            return "Currency must be an ISO 4217 code.";
+        }
+        return "Amounts must be in " + DEFAULT_CURRENCY + ".";
+    }
+
+    // Share of a budget that has been spent; an empty budget is 0% until anything is spent against it
+    public static double percentage(long spentCents, long budgetCents) {
+        if (budgetCents <= 0) {
+            return spentCents > 0 ? 100 : 0;
+        }
+        return spentCents * 100.0 / budgetCents;
+    }
+
+    public static boolean isCurrencyCode(String code) {
+        if (code == null || code.length() != 3) {
+            return false;
+        }
+        try {
+            return Currency.getInstance(code) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
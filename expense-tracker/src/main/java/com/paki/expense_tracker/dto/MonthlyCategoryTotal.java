@@ -0,0 +1,18 @@
+package com.paki.expense_tracker.dto;
+
+import java.time.LocalDate;
+
+// Spending total and count for one category in one month (year/month are null for undated expenses)
+public record MonthlyCategoryTotal(
+        Integer categoryId,
+        String category,
+        Integer year,
+        Integer month,
+        long totalCents,
+        long count
+) {
+
+    public LocalDate monthStart() {
+        return year == null || month == null ? null : LocalDate.of(year, month, 1);
+    }
+}
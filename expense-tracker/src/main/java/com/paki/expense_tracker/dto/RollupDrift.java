@@ -0,0 +1,15 @@
+package com.paki.expense_tracker.dto;
+
+import java.time.LocalDate;
+
+// A rollup row that disagrees with the expenses it summarizes
+public record RollupDrift(
+        Integer categoryId,
+        String category,
+        LocalDate monthStart,
+        long expectedCents,
+        long actualCents,
+        long expectedCount,
+        long actualCount
+) {
+}
@@ -0,0 +1,29 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+// Overall spending total and expense count for a user; also the total-spending response, with decimals in JSON
+public record SpendingSummary(@JsonIgnore long totalCents, long count) {
+
+    // Average expense in cents, rounded half up; integer division keeps large totals exact
+    public long averageCents() {
+        if (count == 0) {
+            return 0;
+        }
+        long quotient = Math.floorDiv(totalCents, count);
+        return Math.floorMod(totalCents, count) * 2 >= count ? quotient + 1 : quotient;
+    }
+
+    @JsonProperty("total")
+    public BigDecimal total() {
+        return Money.toDecimal(totalCents);
+    }
+
+    @JsonProperty("average")
+    public BigDecimal average() {
+        return Money.toDecimal(averageCents());
+    }
+}
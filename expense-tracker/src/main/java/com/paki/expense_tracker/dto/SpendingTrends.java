@@ -0,0 +1,83 @@
+package com.paki.expense_tracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+// Month-by-month spending over a window, per category, with end-of-month projections for the budgets
+public record SpendingTrends(
+        YearMonth from,
+        YearMonth to,
+        int movingAverageMonths,
+        List<Month> months,
+        List<Category> categories,
+        List<Projection> projections
+) {
+
+    // Total for one month, and the trailing average ending at it
+    public record Month(YearMonth month, @JsonIgnore long totalCents, long count, @JsonIgnore long movingAverageCents) {
+
+        @JsonProperty("total")
+        public BigDecimal total() {
+            return Money.toDecimal(totalCents);
+        }
+
+        @JsonProperty("movingAverage")
+        public BigDecimal movingAverage() {
+            return Money.toDecimal(movingAverageCents);
+        }
+    }
+
+    // One category's totals, one entry per month of the window
+    public record Category(String category, @JsonIgnore long totalCents, @JsonIgnore long[] monthlyCents) {
+
+        @JsonProperty("total")
+        public BigDecimal total() {
+            return Money.toDecimal(totalCents);
+        }
+
+        @JsonProperty("totals")
+        public List<BigDecimal> totals() {
+            List<BigDecimal> totals = new ArrayList<>(monthlyCents.length);
+            for (long cents : monthlyCents) {
+                totals.add(Money.toDecimal(cents));
+            }
+            return totals;
+        }
+    }
+
+    // This month's spending against a budget, extrapolated linearly to the end of the month
+    public record Projection(
+            Long budgetId,
+            String category,
+            @JsonIgnore long amountCents,
+            @JsonIgnore long spentCents,
+            @JsonIgnore long projectedCents,
+            double projectedPercentage
+    ) {
+
+        @JsonProperty("amount")
+        public BigDecimal amount() {
+            return Money.toDecimal(amountCents);
+        }
+
+        @JsonProperty("spent")
+        public BigDecimal spent() {
+            return Money.toDecimal(spentCents);
+        }
+
+        @JsonProperty("projected")
+        public BigDecimal projected() {
+            return Money.toDecimal(projectedCents);
+        }
+
+        @JsonProperty("overBudget")
+        public boolean overBudget() {
+            return projectedCents > amountCents;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.paki.expense_tracker.dto;
+
+import com.paki.expense_tracker.entity.User;
+
+import java.time.LocalDateTime;
+
+// A user as the API shows it; never carries the password hash
+public record UserResponse(Long id, String name, String email, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static UserResponse of(User user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
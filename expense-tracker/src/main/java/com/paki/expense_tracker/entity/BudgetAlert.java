@@ -0,0 +1,69 @@
+package com.paki.expense_tracker.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.paki.expense_tracker.dto.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = {
+        // Polling reads a user's alerts after a given id
+        @Index(name = "idx_budget_alert_user_id", columnList = "user_id, id"),
+        // One alert per threshold per budget per month
+        @Index(name = "uk_budget_alert_budget_period", columnList = "budget_id, period_start, threshold", unique = true),
+        // Nightly retention cleanup
+        @Index(name = "idx_budget_alert_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+// Outbox row: a budget's spending crossed a threshold percentage during a month
+public class BudgetAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id, not a reference: the alert outlives the budget being deleted
+    @Column(name = "budget_id")
+    private Long budgetId;
+    private String category;
+    // First day of the month the spending belongs to
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+    // Percentage of the budget that was reached, e.g. 80 or 100
+    private int threshold;
+    // Whole cents at the moment the threshold was crossed
+    @JsonIgnore
+    private long spentCents;
+    @JsonIgnore
+    private long amountCents;
+    private LocalDateTime createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    @JsonIgnore
+    // Back-reference to the owning user
+    private User user;
+
+    @JsonProperty("spent")
+    public BigDecimal getSpent() {
+        return Money.toDecimal(spentCents);
+    }
+
+    @JsonProperty("amount")
+    public BigDecimal getAmount() {
+        return Money.toDecimal(amountCents);
+    }
+
+    @PrePersist
+    // Set timestamp on insert
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
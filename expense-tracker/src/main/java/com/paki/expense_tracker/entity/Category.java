@@ -0,0 +1,85 @@
+package com.paki.expense_tracker.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_category_user_key",
+        columnNames = {"user_id", "normalized_key"}
+))
+@Getter
+@Setter
+// A user's category, stored once; expenses and budgets point at it by id instead of repeating the name
+public class Category {
+
+    public static final int MAX_NAME_LENGTH = 100;
+
+    // The characters of \s: space, tab, line feed, vertical tab, form feed and carriage return
+    private static final Pattern WHITESPACE = Pattern.compile("[ \\t\\n\\x0B\\f\\r]+");
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // As first entered, e.g. "Eating Out"
+    @Column(nullable = false, length = MAX_NAME_LENGTH)
+    private String name;
+
+    // Lookup form of the name, e.g. "eating out"; two spellings with the same key are one category
+    @Column(name = "normalized_key", nullable = false, length = MAX_NAME_LENGTH)
+    private String normalizedKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    // Back-reference to the owning user
+    private User user;
+
+    // JSON reads and writes a category as its plain name; the service swaps this for the stored category
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Category named(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    @JsonValue
+    public String getName() {
+        return name;
+    }
+
+    // Each run of whitespace made one space and the ends trimmed; null for a missing or blank name.
+    // V4 cleaned the names already stored with the same characters, so old and new spellings share a key.
+    public static String clean(String name) {
+        if (name == null) {
+            return null;
+        }
+        String cleaned = WHITESPACE.matcher(name).replaceAll(" ");
+        int start = cleaned.startsWith(" ") ? 1 : 0;
+        int end = cleaned.endsWith(" ") ? cleaned.length() - 1 : cleaned.length();
+        return start >= end ? null : cleaned.substring(start, end);
+    }
+
+    // Why a written name is refused, or null if it is accepted; a missing name is left to the caller
+    public static String nameError(Category category) {
+        String name = category == null ? null : clean(category.getName());
+        if (name != null && name.codePointCount(0, name.length()) > MAX_NAME_LENGTH) {
+            return "Category must be at most " + MAX_NAME_LENGTH + " characters.";
+        }
+        return null;
+    }
+
+    // The cleaned name in lower case: the lookup key
+    public static String normalize(String name) {
+        String cleaned = clean(name);
+        return cleaned == null ? null : cleaned.toLowerCase(Locale.ROOT);
+    }
+}
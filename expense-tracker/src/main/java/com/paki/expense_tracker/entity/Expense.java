@@ -4,11 +4,21 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.paki.expense_tracker.dto.Money;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Per-user lookups by date range
+        @Index(name = "idx_expense_user_date", columnList = "user_id, date"),
+        // Per-user lookups by category; with the amount included, per-category totals never touch the table
+        @Index(name = "idx_expense_user_category_date", columnList = "user_id, category_id, date, amount_cents")
+})
 @Getter
 @Setter
 public class Expense {
@@ -18,23 +28,48 @@ public class Expense {
     private Long id;
 
     private String description;
-    private String category;
-    private double amount;
+
+    // Written and read in JSON as the category name
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id")
+    private Category category;
+
+    // Whole cents; JSON reads and writes the decimal "amount" below
+    @Column(name = "amount_cents", nullable = false)
+    @JsonIgnore
+    private long amountCents;
+
+    @Column(nullable = false, length = 3)
+    @ColumnDefault("'USD'")
+    private String currency;
     private LocalDate date;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonIgnore
     // Back-reference to the owning user
     private User user;
 
+    @JsonProperty("amount")
+    public BigDecimal getAmount() {
+        return Money.toDecimal(amountCents);
+    }
+
+    @JsonProperty("amount")
+    public void setAmount(BigDecimal amount) {
+        amountCents = amount == null ? 0 : Money.toCents(amount);
+    }
+
     @PrePersist
     // Set timestamps on insert
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (currency == null) {
+            currency = Money.DEFAULT_CURRENCY;
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,43 @@
+package com.paki.expense_tracker.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_rollup_user_category_id_month",
+        columnNames = {"user_id", "category_id", "month_start"}
+))
+@Getter
+@Setter
+// Running spend per user, category and month, kept in step with the expense table
+public class SpendingRollup {
+
+    // Key values for uncategorized and undated spending; NULL would let the unique key repeat
+    public static final int NO_CATEGORY = 0;
+    public static final LocalDate NO_MONTH = LocalDate.of(1900, 1, 1);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id rather than a reference: rows are written by a native upsert and grouped on the id
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+    // First day of the month this row covers
+    @Column(nullable = false)
+    private LocalDate monthStart;
+    // Whole cents
+    private long totalCents;
+    private long expenseCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    // Back-reference to the owning user
+    private User user;
+}
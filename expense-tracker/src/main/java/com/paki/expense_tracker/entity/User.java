@@ -30,6 +30,10 @@ public class User {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    @JsonIgnore
+    // Bumped on every expense/budget change; drives the ETags on read endpoints
+    private long dataVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     // Expenses owned by this user
@@ -0,0 +1,43 @@
+package com.paki.expense_tracker.repository;
+
+import com.paki.expense_tracker.entity.BudgetAlert;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface BudgetAlertRepository extends JpaRepository<BudgetAlert, Long> {
+    // A user's alerts newer than the given id, oldest first
+    List<BudgetAlert> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+    // The alert for one threshold of a budget in a month; there is at most one
+    Optional<BudgetAlert> findByBudgetIdAndPeriodStartAndThreshold(Long budgetId, LocalDate periodStart, int threshold);
+
+    // Record a threshold crossing unless the budget already has one for that month; 0 when it did.
+    // The unique key settles concurrent crossings, so only one of them gets to report the alert.
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into budget_alert "
+            + "(user_id, budget_id, category, period_start, threshold, spent_cents, amount_cents, created_at) "
+            + "values (:userId, :budgetId, :category, :periodStart, :threshold, :spentCents, :amountCents, :createdAt)",
+            nativeQuery = true)
+    int insertIfAbsent(Long userId, Long budgetId, String category, LocalDate periodStart, int threshold,
+                       long spentCents, long amountCents, LocalDateTime createdAt);
+
+    // Delete all of a user's alerts in one statement, without loading them
+    @Transactional
+    @Modifying
+    @Query("delete from BudgetAlert a where a.user.id = :userId")
+    int deleteByUserId(Long userId);
+
+    // Drop alerts older than the retention window
+    @Transactional
+    @Modifying
+    @Query("delete from BudgetAlert a where a.createdAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
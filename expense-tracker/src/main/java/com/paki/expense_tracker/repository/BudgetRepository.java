@@ -1,15 +1,44 @@
 package com.paki.expense_tracker.repository;
 
+import com.paki.expense_tracker.dto.BudgetResponse;
 import com.paki.expense_tracker.entity.Budget;
-import com.paki.expense_tracker.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
+    // Entity reads fetch the category in the same statement
+
     // Fetch budgets for a specific user
-    List<Budget> findByUser(User user);
-    // Fetch a budget by user and category
-    Optional<Budget> findByUserAndCategory(User user, String category);
+    @EntityGraph(attributePaths = "category")
+    List<Budget> findByUserId(Long userId);
+    // Fetch a budget by user and category id
+    @EntityGraph(attributePaths = "category")
+    Optional<Budget> findByUserIdAndCategoryId(Long userId, Integer categoryId);
+    // Fetch a budget only if it belongs to the user
+    @EntityGraph(attributePaths = "category")
+    Optional<Budget> findByIdAndUserId(Long id, Long userId);
+
+    // A user's budgets as responses, without loading entities
+    @Query("select new com.paki.expense_tracker.dto.BudgetResponse("
+            + "b.id, c.name, b.amountCents, b.currency, b.createdAt, b.updatedAt) "
+            + "from Budget b left join b.category c where b.user.id = :userId")
+    List<BudgetResponse> findResponsesByUserId(Long userId);
+
+    // Delete a budget only if it belongs to the user; returns rows deleted
+    @Transactional
+    @Modifying
+    @Query("delete from Budget b where b.id = :id and b.user.id = :userId")
+    int deleteByIdAndUserId(Long id, Long userId);
+
+    // Delete all of a user's budgets in one statement, without loading them
+    @Transactional
+    @Modifying
+    @Query("delete from Budget b where b.user.id = :userId")
+    int deleteByUserId(Long userId);
 }
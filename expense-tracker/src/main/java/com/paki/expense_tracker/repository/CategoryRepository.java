@@ -0,0 +1,31 @@
+package com.paki.expense_tracker.repository;
+
+import com.paki.expense_tracker.entity.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CategoryRepository extends JpaRepository<Category, Integer> {
+    // Fetch every category a user has
+    List<Category> findByUserId(Long userId);
+    // Fetch a user's category by its normalized key
+    Optional<Category> findByUserIdAndNormalizedKey(Long userId, String normalizedKey);
+
+    // Create the category unless it exists; safe when two writers add the same new name at once
+    @Transactional
+    @Modifying
+    @Query(value = "insert into category (user_id, name, normalized_key) values (:userId, :name, :normalizedKey) "
+            + "on duplicate key update id = id",
+            nativeQuery = true)
+    int insertIfAbsent(Long userId, String name, String normalizedKey);
+
+    // Delete all of a user's categories; expenses and budgets must be gone first
+    @Transactional
+    @Modifying
+    @Query("delete from Category c where c.user.id = :userId")
+    int deleteByUserId(Long userId);
+}
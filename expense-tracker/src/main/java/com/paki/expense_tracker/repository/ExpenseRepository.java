@@ -1,12 +1,126 @@
 package com.paki.expense_tracker.repository;
 
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.ExpenseRow;
+import com.paki.expense_tracker.dto.ExpenseText;
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
 import com.paki.expense_tracker.entity.Expense;
-import com.paki.expense_tracker.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+    // Reads for responses select ExpenseResponse rows directly: no entities, proxies or persistence-context
+    // bookkeeping per row. Entity reads fetch the category in the same statement.
+    String RESPONSE = "select new com.paki.expense_tracker.dto.ExpenseResponse("
+            + "e.id, e.description, c.name, e.amountCents, e.currency, e.date, e.createdAt, e.updatedAt) "
+            + "from Expense e left join e.category c ";
+
     // Fetch expenses for a specific user
-    List<Expense> findByUser(User user);
+    @EntityGraph(attributePaths = "category")
+    List<Expense> findByUserId(Long userId);
+    // Fetch an expense only if it belongs to the user
+    @EntityGraph(attributePaths = "category")
+    Optional<Expense> findByIdAndUserId(Long id, Long userId);
+
+    // A user's expenses as responses
+    @Query(RESPONSE + "where e.user.id = :userId")
+    List<ExpenseResponse> findResponsesByUserId(Long userId);
+    // A user's expenses between two dates (inclusive)
+    @Query(RESPONSE + "where e.user.id = :userId and e.date between :startDate and :endDate")
+    List<ExpenseResponse> findResponsesByUserIdAndDateBetween(Long userId, LocalDate startDate, LocalDate endDate);
+    // A user's expenses for a category id; served by the (user_id, category_id, ...) index
+    @Query(RESPONSE + "where e.user.id = :userId and e.category.id = :categoryId")
+    List<ExpenseResponse> findResponsesByUserIdAndCategoryId(Long userId, Integer categoryId);
+    // A user's expenses among the given ids, in no particular order
+    @Query(RESPONSE + "where e.user.id = :userId and e.id in :ids")
+    List<ExpenseResponse> findResponsesByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    // Delete an expense only if it belongs to the user; returns rows deleted
+    @Transactional
+    @Modifying
+    @Query("delete from Expense e where e.id = :id and e.user.id = :userId")
+    int deleteByIdAndUserId(Long id, Long userId);
+
+    // Delete all of a user's expenses in one statement, without loading them
+    @Transactional
+    @Modifying
+    @Query("delete from Expense e where e.user.id = :userId")
+    int deleteByUserId(Long userId);
+
+    // First page of a user's expenses, newest first
+    @Query(RESPONSE + "where e.user.id = :userId order by e.date desc, e.id desc")
+    List<ExpenseResponse> findFirstPage(Long userId, Limit limit);
+
+    // Page of a user's expenses after the (date, id) keyset position, newest first
+    @Query(RESPONSE + "where e.user.id = :userId "
+            + "and (e.date < :date or (e.date = :date and e.id < :id)) "
+            + "order by e.date desc, e.id desc")
+    List<ExpenseResponse> findPageAfter(Long userId, LocalDate date, Long id, Limit limit);
+
+    // Forward-only cursor over all of a user's expenses; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE + "where e.user.id = :userId order by e.date desc, e.id desc")
+    Stream<ExpenseResponse> streamResponsesByUserId(Long userId);
+
+    // Sum and count all of a user's expenses without loading them
+    @Query("select new com.paki.expense_tracker.dto.SpendingSummary(coalesce(sum(e.amountCents), 0L), count(e)) "
+            + "from Expense e where e.user.id = :userId")
+    SpendingSummary summarizeByUserId(Long userId);
+
+    // Sum and count a user's expenses between two dates
+    @Query("select new com.paki.expense_tracker.dto.SpendingSummary(coalesce(sum(e.amountCents), 0L), count(e)) "
+            + "from Expense e where e.user.id = :userId and e.date between :from and :to")
+    SpendingSummary summarizeBetween(Long userId, LocalDate from, LocalDate to);
+
+    // Sum and count a user's expenses per category without loading them
+    @Query("select new com.paki.expense_tracker.dto.CategoryTotal(c.id, c.name, sum(e.amountCents), count(e)) "
+            + "from Expense e left join e.category c where e.user.id = :userId group by c.id, c.name")
+    List<CategoryTotal> totalsByCategory(Long userId);
+
+    // Same grouping between two dates
+    @Query("select new com.paki.expense_tracker.dto.CategoryTotal(c.id, c.name, sum(e.amountCents), count(e)) "
+            + "from Expense e left join e.category c where e.user.id = :userId and e.date between :from and :to "
+            + "group by c.id, c.name")
+    List<CategoryTotal> totalsByCategoryBetween(Long userId, LocalDate from, LocalDate to);
+
+    // Sum and count a user's expenses per category and month, used to rebuild the rollup
+    @Query("select new com.paki.expense_tracker.dto.MonthlyCategoryTotal("
+            + "c.id, c.name, extract(year from e.date), extract(month from e.date), sum(e.amountCents), count(e)) "
+            + "from Expense e left join e.category c where e.user.id = :userId "
+            + "group by c.id, c.name, extract(year from e.date), extract(month from e.date)")
+    List<MonthlyCategoryTotal> monthlyTotalsByCategory(Long userId);
+
+    // Same grouping over a date range only; served by the (user_id, date) index
+    @Query("select new com.paki.expense_tracker.dto.MonthlyCategoryTotal("
+            + "c.id, c.name, extract(year from e.date), extract(month from e.date), sum(e.amountCents), count(e)) "
+            + "from Expense e left join e.category c where e.user.id = :userId and e.date between :from and :to "
+            + "group by c.id, c.name, extract(year from e.date), extract(month from e.date)")
+    List<MonthlyCategoryTotal> monthlyTotalsByCategoryBetween(Long userId, LocalDate from, LocalDate to);
+
+    // Every expense of a user as bare columns, to load the analytics snapshot without entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.paki.expense_tracker.dto.ExpenseRow(e.id, e.amountCents, e.date, c.id, c.name) "
+            + "from Expense e left join e.category c where e.user.id = :userId")
+    Stream<ExpenseRow> streamRowsByUserId(Long userId);
+
+    // Every expense of a user in id order, with its description, to build the search index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.paki.expense_tracker.dto.ExpenseText(e.id, e.description, e.date, c.id) "
+            + "from Expense e left join e.category c where e.user.id = :userId order by e.id")
+    Stream<ExpenseText> streamTextByUserId(Long userId);
 }
@@ -0,0 +1,61 @@
+package com.paki.expense_tracker.repository;
+
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.SpendingRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface SpendingRollupRepository extends JpaRepository<SpendingRollup, Long> {
+    // Fetch every rollup row for a user
+    List<SpendingRollup> findByUserId(Long userId);
+
+    // Add a delta to a rollup row, creating it on first use. Keys are never null; see SpendingRollup.NO_CATEGORY.
+    @Transactional
+    @Modifying
+    @Query(value = "insert into spending_rollup (user_id, category_id, month_start, total_cents, expense_count) "
+            + "values (:userId, :categoryId, :monthStart, :cents, :count) "
+            + "on duplicate key update total_cents = total_cents + :cents, expense_count = expense_count + :count",
+            nativeQuery = true)
+    int addToRollup(Long userId, Integer categoryId, LocalDate monthStart, long cents, long count);
+
+    // Running total of one (user, category, month) bucket, read under the row lock so that concurrent
+    // additions to the bucket each see the total their own upsert produced
+    @Query(value = "select total_cents from spending_rollup "
+            + "where user_id = :userId and category_id = :categoryId and month_start = :monthStart for update",
+            nativeQuery = true)
+    long lockTotalCents(Long userId, Integer categoryId, LocalDate monthStart);
+
+    // Delete all rollup rows for a user
+    @Transactional
+    @Modifying
+    @Query("delete from SpendingRollup r where r.user.id = :userId")
+    int deleteByUserId(Long userId);
+
+    // Overall total and count for a user, read from the rollup
+    @Query("select new com.paki.expense_tracker.dto.SpendingSummary("
+            + "coalesce(sum(r.totalCents), 0L), coalesce(sum(r.expenseCount), 0)) "
+            + "from SpendingRollup r where r.user.id = :userId")
+    SpendingSummary summarizeByUserId(Long userId);
+
+    // Per-category total and count for a user, read from the rollup; grouped on the id, named by a join.
+    // Uncategorized spending comes back first, with a null id as it has in the expense table; the rest by id.
+    @Query("select new com.paki.expense_tracker.dto.CategoryTotal("
+            + "nullif(r.categoryId, 0), c.name, sum(r.totalCents), sum(r.expenseCount)) "
+            + "from SpendingRollup r left join Category c on c.id = r.categoryId where r.user.id = :userId "
+            + "group by r.categoryId, c.name having sum(r.expenseCount) > 0 order by r.categoryId")
+    List<CategoryTotal> totalsByCategory(Long userId);
+
+    // Per-category total and count for some of a user's categories
+    @Query("select new com.paki.expense_tracker.dto.CategoryTotal("
+            + "r.categoryId, c.name, sum(r.totalCents), sum(r.expenseCount)) "
+            + "from SpendingRollup r left join Category c on c.id = r.categoryId "
+            + "where r.user.id = :userId and r.categoryId in :categoryIds group by r.categoryId, c.name")
+    List<CategoryTotal> totalsForCategories(Long userId, Collection<Integer> categoryIds);
+}
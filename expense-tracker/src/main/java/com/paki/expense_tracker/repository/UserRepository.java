@@ -1,11 +1,46 @@
 package com.paki.expense_tracker.repository;
 
+import com.paki.expense_tracker.dto.UserResponse;
 import com.paki.expense_tracker.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     // Find a user by email address
     Optional<User> findByEmail(String email);
+
+    // A user as a response, without loading the entity
+    @Query("select new com.paki.expense_tracker.dto.UserResponse(u.id, u.name, u.email, u.createdAt, u.updatedAt) "
+            + "from User u where u.id = :id")
+    Optional<UserResponse> findResponseById(Long id);
+
+    // Current data version of a user; empty if the user does not exist
+    @Query("select u.dataVersion from User u where u.id = :id")
+    Optional<Long> findDataVersionById(Long id);
+
+    // Bump a user's data version after a change to their expenses or budgets
+    @Transactional
+    @Modifying
+    @Query("update User u set u.dataVersion = u.dataVersion + 1 where u.id = :id")
+    int incrementDataVersion(Long id);
+
+    // Replace a password hash, unless it was changed since it was read
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(Long id, String oldPassword, String newPassword);
+
+    // Ids of every user, without loading the rows
+    @Query("select u.id from User u")
+    List<Long> findAllIds();
+
+    // Delete the user row directly, skipping the cascade that loads every expense
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(Long id);
 }
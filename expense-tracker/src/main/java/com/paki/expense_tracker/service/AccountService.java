@@ -0,0 +1,36 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.repository.BudgetAlertRepository;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.CategoryRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class AccountService {
+
+    private final UserRepository userRepository;
+    private final ExpenseRepository expenseRepository;
+    private final BudgetRepository budgetRepository;
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final BudgetAlertRepository budgetAlertRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Transactional
+    public boolean deleteUser(Long userId) {
+        // Children first with set-based deletes, so cost does not depend on history size
+        expenseRepository.deleteByUserId(userId);
+        budgetRepository.deleteByUserId(userId);
+        spendingRollupRepository.deleteByUserId(userId);
+        budgetAlertRepository.deleteByUserId(userId);
+        // After the expenses and budgets that point at them; cached lookups for this user
+        // are never hit again since user ids are not reused
+        categoryRepository.deleteByUserId(userId);
+        return userRepository.deleteUserById(userId) > 0;
+    }
+}
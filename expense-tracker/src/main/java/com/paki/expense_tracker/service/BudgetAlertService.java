@@ -0,0 +1,156 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.BudgetAlert;
+import com.paki.expense_tracker.repository.BudgetAlertRepository;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BudgetAlertService {
+
+    private static final int MAX_ALERTS_PER_POLL = 100;
+    private static final int MAX_WAITERS_PER_USER = 8;
+
+    private final BudgetAlertRepository budgetAlertRepository;
+    private final BudgetRepository budgetRepository;
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Open long-polls per user, completed when that user's alerts commit
+    private final Map<Long, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    @Value("${budget.alert.thresholds:80,100}")
+    private int[] thresholds;
+
+    @Value("${budget.alert.retention-days:90}")
+    private int retentionDays;
+
+    // Alerts written by one transaction, handed to waiters once it commits
+    public record AlertsRaised(Long userId, List<BudgetAlert> alerts) {
+    }
+
+    private record Waiter(long afterId, DeferredResult<List<BudgetAlert>> result) {
+    }
+
+    // Called by the rollup after it has added the delta to a (category, month) bucket.
+    // Only growth in the current month can cross a threshold, so everything else returns without a query.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void spendingAdded(Long userId, Integer categoryId, LocalDate monthStart, long deltaCents) {
+        if (deltaCents <= 0 || categoryId == null || monthStart == null
+                || !YearMonth.from(monthStart).equals(YearMonth.now())) {
+            return;
+        }
+        Optional<Budget> found = budgetRepository.findByUserIdAndCategoryId(userId, categoryId);
+        if (found.isEmpty() || found.get().getAmountCents() <= 0) {
+            return;
+        }
+        Budget budget = found.get();
+        long afterCents = spendingRollupRepository.lockTotalCents(userId, categoryId, monthStart);
+        long beforeCents = afterCents - deltaCents;
+
+        List<BudgetAlert> raised = new ArrayList<>();
+        for (int threshold : thresholds) {
+            // Compare in cents x 100 to stay exact
+            long limit = budget.getAmountCents() * threshold;
+            if (beforeCents * 100 >= limit || afterCents * 100 < limit) {
+                continue;
+            }
+            // Falling back under and crossing again in the same month does not repeat the alert.
+            // The name is the one the budget has now; the alert keeps it even if the budget goes away.
+            int inserted = budgetAlertRepository.insertIfAbsent(userId, budget.getId(), budget.getCategory().getName(),
+                    monthStart, threshold, afterCents, budget.getAmountCents(), LocalDateTime.now());
+            if (inserted > 0) {
+                budgetAlertRepository.findByBudgetIdAndPeriodStartAndThreshold(budget.getId(), monthStart, threshold)
+                        .ifPresent(raised::add);
+            }
+        }
+        if (!raised.isEmpty()) {
+            eventPublisher.publishEvent(new AlertsRaised(userId, raised));
+        }
+    }
+
+    // Alerts after `afterId`, answered at once if there are any, otherwise when one commits or at the timeout
+    public DeferredResult<List<BudgetAlert>> poll(Long userId, long afterId, long timeoutMillis) {
+        DeferredResult<List<BudgetAlert>> result = new DeferredResult<>(timeoutMillis, List.of());
+        Waiter waiter = new Waiter(afterId, result);
+        boolean waiting = register(userId, waiter);
+        if (waiting) {
+            result.onCompletion(() -> unregister(userId, waiter));
+        }
+        // Read after registering, so an alert committed in between is not missed
+        List<BudgetAlert> pending = budgetAlertRepository
+                .findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(MAX_ALERTS_PER_POLL));
+        if (!pending.isEmpty() || !waiting) {
+            result.setResult(pending);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener
+    public void onAlertsRaised(AlertsRaised event) {
+        Set<Waiter> userWaiters = waiters.get(event.userId());
+        if (userWaiters == null) {
+            return;
+        }
+        for (Waiter waiter : userWaiters) {
+            List<BudgetAlert> newer = event.alerts().stream()
+                    .filter(alert -> alert.getId() > waiter.afterId())
+                    .toList();
+            if (!newer.isEmpty()) {
+                waiter.result().setResult(newer);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${budget.alert.cleanup.cron:0 0 4 * * *}")
+    public void deleteExpired() {
+        int deleted = budgetAlertRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Deleted {} budget alerts older than {} days", deleted, retentionDays);
+    }
+
+    private boolean register(Long userId, Waiter waiter) {
+        // Past the per-user limit the poll answers immediately instead of holding another request open
+        boolean[] added = new boolean[1];
+        waiters.compute(userId, (id, userWaiters) -> {
+            if (userWaiters == null) {
+                userWaiters = ConcurrentHashMap.newKeySet();
+            }
+            if (userWaiters.size() < MAX_WAITERS_PER_USER) {
+                added[0] = userWaiters.add(waiter);
+            }
+            return userWaiters.isEmpty() ? null : userWaiters;
+        });
+        return added[0];
+    }
+
+    private void unregister(Long userId, Waiter waiter) {
+        waiters.computeIfPresent(userId, (id, userWaiters) -> {
+            userWaiters.remove(waiter);
+            return userWaiters.isEmpty() ? null : userWaiters;
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.BudgetResponse;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class BudgetService {
+
+    private final BudgetRepository budgetRepository;
+    private final UserRepository userRepository;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final UserEventService userEventService;
+    private final CategoryService categoryService;
+    private final ExpenseSnapshotService expenseSnapshotService;
+    private final ExpenseSearchService expenseSearchService;
+
+    @Transactional
+    public Optional<Budget> updateCategory(Long userId, Category requested, long amountCents) {
+        // Change the amount of the user's existing budget for this category, if there is one
+        Category category = categoryService.find(userId, requested == null ? null : requested.getName());
+        if (category == null) {
+            return Optional.empty();
+        }
+        return budgetRepository.findByUserIdAndCategoryId(userId, category.getId()).map(budget -> {
+            budget.setAmountCents(amountCents);
+            changed(userId);
+            userEventService.changed(userId, "budget.updated", BudgetResponse.of(budget));
+            return budget;
+        });
+    }
+
+    @Transactional
+    public Budget add(Long userId, Budget budget) {
+        // Attach the budget to the user by reference (no lookup)
+        budget.setUser(userRepository.getReferenceById(userId));
+        budget.setCategory(categoryService.resolve(userId, budget.getCategory()));
+        Budget saved = budgetRepository.save(budget);
+        changed(userId);
+        userEventService.changed(userId, "budget.created", BudgetResponse.of(saved));
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Budget> update(Long userId, Long budgetId, long amountCents) {
+        // Ownership is part of the lookup; empty means missing or owned by someone else
+        return budgetRepository.findByIdAndUserId(budgetId, userId).map(budget -> {
+            budget.setAmountCents(amountCents);
+            changed(userId);
+            userEventService.changed(userId, "budget.updated", BudgetResponse.of(budget));
+            return budget;
+        });
+    }
+
+    @Transactional
+    public boolean delete(Long userId, Long budgetId) {
+        // Ownership is part of the delete; false means missing or owned by someone else
+        if (budgetRepository.deleteByIdAndUserId(budgetId, userId) == 0) {
+            return false;
+        }
+        changed(userId);
+        userEventService.changed(userId, "budget.deleted", Map.of("id", budgetId));
+        return true;
+    }
+
+    private void changed(Long userId) {
+        dataVersionService.bump(userId);
+        expenseSnapshotService.unchanged(userId);
+        expenseSearchService.unchanged(userId);
+        dashboardQueryService.evictBudgetViews(userId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.config.CacheConfig;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.repository.CategoryRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    // Name -> category per user. Puts made inside a transaction wait for its commit,
+    // so a category created by a write that rolls back is never served from here.
+    private final Cache categories;
+
+    private record Key(Long userId, String normalizedKey) {
+    }
+
+    public CategoryService(CategoryRepository categoryRepository, CacheManager cacheManager) {
+        this.categoryRepository = categoryRepository;
+        this.categories = cacheManager.getCache(CacheConfig.CATEGORIES);
+    }
+
+    // The user's existing category with this name (any spelling), or null; never writes
+    public Category find(Long userId, String name) {
+        String normalizedKey = Category.normalize(name);
+        if (normalizedKey == null) {
+            return null;
+        }
+        Key key = new Key(userId, normalizedKey);
+        Category cached = categories.get(key, Category.class);
+        if (cached != null) {
+            return cached;
+        }
+        Category found = categoryRepository.findByUserIdAndNormalizedKey(userId, normalizedKey).orElse(null);
+        if (found != null) {
+            categories.put(key, found);
+        }
+        return found;
+    }
+
+    // The stored category for a name as read from a request, created on first use; null for no name.
+    // Joins the caller's transaction when there is one.
+    @Transactional
+    public Category resolve(Long userId, Category requested) {
+        String name = requested == null ? null : Category.clean(requested.getName());
+        Category existing = find(userId, name);
+        if (existing != null || name == null) {
+            return existing;
+        }
+        String normalizedKey = Category.normalize(name);
+        categoryRepository.insertIfAbsent(userId, name, normalizedKey);
+        Category created = categoryRepository.findByUserIdAndNormalizedKey(userId, normalizedKey).orElseThrow();
+        categories.put(new Key(userId, normalizedKey), created);
+        return created;
+    }
+
+    // Resolve several names at once, e.g. for an import chunk; keyed by normalized name
+    @Transactional
+    public Map<String, Category> resolveAll(Long userId, Iterable<Category> requested) {
+        Map<String, Category> resolved = new LinkedHashMap<>();
+        for (Category category : requested) {
+            String normalizedKey = Category.normalize(category == null ? null : category.getName());
+            if (normalizedKey != null && !resolved.containsKey(normalizedKey)) {
+                resolved.put(normalizedKey, resolve(userId, category));
+            }
+        }
+        return resolved;
+    }
+}
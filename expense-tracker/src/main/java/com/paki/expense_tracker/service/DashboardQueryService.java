@@ -0,0 +1,93 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.config.CacheConfig;
+import com.paki.expense_tracker.dto.BudgetSpending;
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.Money;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DashboardQueryService {
+
+    private final ExpenseRepository expenseRepository;
+    private final BudgetRepository budgetRepository;
+    private final SpendingRollupRepository spendingRollupRepository;
+
+    @Cacheable(cacheNames = CacheConfig.EXPENSES, key = "#userId", sync = true)
+    public List<ExpenseResponse> expenses(Long userId) {
+        return expenseRepository.findResponsesByUserId(userId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.SPENDING_TOTALS, key = "#userId", sync = true)
+    public SpendingSummary spendingTotals(Long userId) {
+        return spendingRollupRepository.summarizeByUserId(userId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_STATS, key = "#userId", sync = true)
+    public List<CategoryTotal> categoryTotals(Long userId) {
+        return spendingRollupRepository.totalsByCategory(userId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.BUDGETS_WITH_SPENDING, key = "#userId", sync = true)
+    public List<BudgetSpending> budgetsWithSpending(Long userId) {
+        // Enrich budgets with spending totals and derived stats
+        List<Budget> budgets = budgetRepository.findByUserId(userId);
+        // Category ids with their totals in parallel arrays, ascending as the query returns them. Ids are
+        // global, so one user's are too sparse to index an array by; a binary search finds each budget's.
+        List<CategoryTotal> totals = spendingRollupRepository.totalsByCategory(userId);
+        int[] categoryIds = new int[totals.size()];
+        long[] spentCents = new long[totals.size()];
+        int size = 0;
+        for (CategoryTotal categoryTotal : totals) {
+            if (categoryTotal.categoryId() != null) {
+                categoryIds[size] = categoryTotal.categoryId();
+                spentCents[size++] = categoryTotal.totalCents();
+            }
+        }
+
+        List<BudgetSpending> result = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            Category category = budget.getCategory();
+            int found = category == null ? -1 : Arrays.binarySearch(categoryIds, 0, size, category.getId());
+            long spent = found < 0 ? 0 : spentCents[found];
+            result.add(new BudgetSpending(
+                    budget.getId(),
+                    category == null ? null : category.getName(),
+                    budget.getAmountCents(),
+                    spent,
+                    Money.percentage(spent, budget.getAmountCents())
+            ));
+        }
+        return result;
+    }
+
+    // Expense changes affect every cached view, including budget spending
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.EXPENSES, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.SPENDING_TOTALS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY_STATS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.BUDGETS_WITH_SPENDING, key = "#userId")
+    })
+    public void evictExpenseViews(Long userId) {
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.BUDGETS_WITH_SPENDING, key = "#userId")
+    public void evictBudgetViews(Long userId) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.paki.expense_tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.paki.expense_tracker.config.CacheConfig;
+import com.paki.expense_tracker.repository.UserRepository;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class DataVersionService {
+
+    private final UserRepository userRepository;
+    private final Cache<Object, Object> versions;
+
+    @SuppressWarnings("unchecked")
+    public DataVersionService(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        // The Caffeine cache behind the transaction-aware proxy, so loads can run in its per-key compute
+        this.versions = (Cache<Object, Object>) cacheManager.getCache(CacheConfig.DATA_VERSIONS).getNativeCache();
+    }
+
+    // Null when the user does not exist. The load runs inside the cache's compute for the key, so the
+    // after-commit eviction in bump() waits for a load in flight rather than being overwritten by a
+    // version it read before the commit. This is @Cacheable(sync = true), except that a missing user is
+    // not cached and a new account is never hidden.
+    public Long current(Long userId) {
+        return (Long) versions.get(userId, id -> userRepository.findDataVersionById(userId).orElse(null));
+    }
+
+    // Joins the caller's transaction when there is one; the cached version is dropped after commit
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.DATA_VERSIONS, key = "#userId")
+    public void bump(Long userId) {
+        userRepository.incrementDataVersion(userId);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.DATA_VERSIONS, key = "#userId")
+    public void evict(Long userId) {
+    }
+
+    public static String etag(Long userId, long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+}
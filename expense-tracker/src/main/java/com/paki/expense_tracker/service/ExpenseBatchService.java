@@ -0,0 +1,136 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.BatchResult;
+import com.paki.expense_tracker.dto.Money;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ExpenseBatchService {
+
+    // Plain JDBC so the driver can batch (and on MySQL rewrite into multi-row inserts);
+    // ids still come from the auto-increment column
+    private static final String INSERT_SQL = "INSERT INTO expense "
+            + "(description, category_id, amount_cents, currency, date, user_id, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SpendingRollupService spendingRollupService;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final UserEventService userEventService;
+    private final CategoryService categoryService;
+
+    @Value("${expense.batch.size:500}")
+    private int batchSize;
+
+    public BatchResult ingest(Long userId, InputStream body) {
+        // Read a JSON array or NDJSON one row at a time and flush every batchSize rows
+        List<Expense> chunk = new ArrayList<>(batchSize);
+        List<BatchResult.RowError> errors = new ArrayList<>();
+        int inserted = 0;
+        int rejected = 0;
+        int index = 0;
+
+        try (MappingIterator<Expense> rows = objectMapper.readerFor(Expense.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                Expense expense = rows.nextValue();
+                String problem = validate(expense);
+                if (problem != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new BatchResult.RowError(index, problem));
+                    }
+                } else {
+                    chunk.add(expense);
+                    if (chunk.size() == batchSize) {
+                        inserted += insertChunk(userId, chunk);
+                        chunk.clear();
+                    }
+                }
+                index++;
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed expense at row " + index + "; "
+                    + inserted + " earlier rows were saved.", e);
+        }
+
+        if (!chunk.isEmpty()) {
+            inserted += insertChunk(userId, chunk);
+        }
+        return new BatchResult(inserted, rejected, errors);
+    }
+
+    private int insertChunk(Long userId, List<Expense> chunk) {
+        // One transaction per chunk so a huge import never holds one long transaction
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            // One lookup per distinct name in the chunk, mostly answered from the category cache
+            Map<String, Category> categories = categoryService.resolveAll(
+                    userId, chunk.stream().map(Expense::getCategory).toList());
+            for (Expense expense : chunk) {
+                expense.setCategory(categories.get(Category.normalize(expense.getCategory().getName())));
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, expense) -> {
+                ps.setString(1, expense.getDescription());
+                ps.setInt(2, expense.getCategory().getId());
+                ps.setLong(3, expense.getAmountCents());
+                ps.setString(4, expense.getCurrency() == null ? Money.DEFAULT_CURRENCY : expense.getCurrency());
+                ps.setDate(5, Date.valueOf(expense.getDate()));
+                ps.setLong(6, userId);
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+            });
+            spendingRollupService.addAll(userId, chunk);
+            dataVersionService.bump(userId);
+            dashboardQueryService.evictExpenseViews(userId);
+            // Imported rows are not sent one by one; clients reload the list on this event
+            userEventService.changed(userId, "expenses.imported", Map.of("count", chunk.size()));
+            userEventService.categoryTotalsChanged(userId, categories.values());
+        });
+        return chunk.size();
+    }
+
+    private static String validate(Expense expense) {
+        if (expense == null) {
+            return "Expense is required.";
+        }
+        if (expense.getDescription() == null || expense.getDescription().isBlank()) {
+            return "Description is required.";
+        }
+        if (expense.getCategory() == null || Category.clean(expense.getCategory().getName()) == null) {
+            return "Category is required.";
+        }
+        String categoryError = Category.nameError(expense.getCategory());
+        if (categoryError != null) {
+            return categoryError;
+        }
+        if (expense.getDate() == null) {
+            return "Date is required.";
+        }
+        if (expense.getAmountCents() <= 0) {
+            return "Amount must be greater than zero.";
+        }
+        return Money.currencyError(expense.getCurrency());
+    }
+}
@@ -0,0 +1,34 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ExpenseExportService {
+
+    private final ExpenseRepository expenseRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void writeNdjson(Long userId, OutputStream out) throws IOException {
+        // Write one JSON object per line; rows are plain records, so nothing piles up in the persistence context
+        try (Stream<ExpenseResponse> expenses = expenseRepository.streamResponsesByUserId(userId)) {
+            Iterator<ExpenseResponse> iterator = expenses.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,195 @@
+package com.paki.expense_tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paki.expense_tracker.config.ReadYourWritesFilter;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.ExpenseText;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Word-prefix search over expense descriptions, from an inverted index per active user. An index is
+// built on the user's first search and kept in step with their expense writes; one that trails the
+// data version (a batch import, a rollup rebuild) is rebuilt before it answers.
+@Service
+public class ExpenseSearchService {
+
+    private final ExpenseRepository expenseRepository;
+    private final UserRepository userRepository;
+    private final DataVersionService dataVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, SearchIndex> indexes;
+    private final Timer queries;
+    private final Timer builds;
+
+    // A committed expense write, in data-version order
+    public record Change(Long userId, long version, boolean cleared, Long removedId, ExpenseText added) {
+    }
+
+    public ExpenseSearchService(
+            ExpenseRepository expenseRepository,
+            UserRepository userRepository,
+            DataVersionService dataVersionService,
+            ApplicationEventPublisher eventPublisher,
+            SingleFlight singleFlight,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${search.index.max-bytes:33554432}") long maxBytes,
+            @Value("${search.index.idle-ms:1800000}") long idleMillis
+    ) {
+        this.expenseRepository = expenseRepository;
+        this.userRepository = userRepository;
+        this.dataVersionService = dataVersionService;
+        this.eventPublisher = eventPublisher;
+        this.singleFlight = singleFlight;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Bounded by heap bytes; users who stop searching are dropped first, or once idle for long enough
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, SearchIndex index) -> (int) Math.min(Integer.MAX_VALUE, index.bytes()))
+                .expireAfterAccess(Duration.ofMillis(idleMillis))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "expenseSearchIndexes");
+        Gauge.builder("search.index.bytes", indexes,
+                        cache -> cache.policy().eviction()
+                                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .description("Heap held by expense search indexes")
+                .register(meterRegistry);
+        Gauge.builder("search.index.users", indexes, Cache::estimatedSize)
+                .description("Users with a search index in memory")
+                .register(meterRegistry);
+        this.queries = Timer.builder("search.queries")
+                .description("Index lookups, without loading the matching expenses")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.builds = Timer.builder("search.index.builds")
+                .description("Search indexes loaded from the database")
+                .register(meterRegistry);
+    }
+
+    // Up to limit expenses matching every word of the query as a prefix, newest first.
+    // The query must have at least one word; see terms(). Throws if the user does not exist.
+    public List<ExpenseResponse> search(Long userId, String[] terms, Integer categoryId,
+                                        LocalDate from, LocalDate to, int limit) {
+        SearchIndex index = index(userId);
+        long[] ids = queries.record(() -> index.search(terms, categoryId, from, to, limit));
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, ExpenseResponse> found = expenseRepository
+                .findResponsesByUserIdAndIdIn(userId, Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(ExpenseResponse::id, Function.identity()));
+        // Back in index order; an expense deleted since the lookup is left out
+        List<ExpenseResponse> results = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            ExpenseResponse expense = found.get(id);
+            if (expense != null) {
+                results.add(expense);
+            }
+        }
+        return results;
+    }
+
+    // The words of a query, as the index splits descriptions
+    public static String[] terms(String query) {
+        return SearchIndex.terms(query);
+    }
+
+    // Called inside an expense write, after the data-version bump; applied once the write commits.
+    // Users without an index pay nothing; for the rest this reads back the new version.
+    public void changed(Long userId, boolean cleared, Long removedId, Expense added) {
+        if (!indexes.asMap().containsKey(userId)) {
+            return;
+        }
+        long version = userRepository.findDataVersionById(userId).orElseThrow();
+        eventPublisher.publishEvent(new Change(userId, version, cleared, removedId,
+                added == null ? null : ExpenseText.of(added)));
+    }
+
+    // The data version moved without touching expenses (budgets); keeps an index in step
+    public void unchanged(Long userId) {
+        changed(userId, false, null, null);
+    }
+
+    @TransactionalEventListener
+    public void apply(Change change) {
+        // A change that is not the next version is dropped; the index then trails and is rebuilt
+        indexes.asMap().computeIfPresent(change.userId(), (userId, index) -> {
+            index.apply(change.version(), change.cleared(), change.removedId(), change.added());
+            // Returned to the map so the weigher sees the new size
+            return index;
+        });
+    }
+
+    private SearchIndex index(Long userId) {
+        Long version = dataVersionService.current(userId);
+        if (version == null) {
+            throw new RuntimeException("User not found");
+        }
+        SearchIndex index = indexes.getIfPresent(userId);
+        // Newer than the cached version is fine: that only means the cache has not caught up
+        if (index != null && index.version() >= version) {
+            return index;
+        }
+        // Concurrent first searches by the same user share one load
+        return singleFlight.run("search-index:" + userId, () -> builds.record(() -> {
+            SearchIndex loaded = ReadYourWritesFilter.onPrimary(
+                    () -> readOnlyTransaction.execute(status -> load(userId)));
+            if (loaded == null) {
+                throw new RuntimeException("User not found");
+            }
+            indexes.put(userId, loaded);
+            return loaded;
+        }));
+    }
+
+    private SearchIndex load(Long userId) {
+        // Version first: rows read after it can only be newer, and replaying those writes is harmless
+        Long version = userRepository.findDataVersionById(userId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        try (Stream<ExpenseText> rows = expenseRepository.streamTextByUserId(userId)) {
+            return SearchIndex.load(version, rows.iterator());
+        }
+    }
+
+    // Drops a deleted user's index
+    public void evict(Long userId) {
+        indexes.invalidate(userId);
+    }
+
+    // Whether the user's searches would be answered without a rebuild; for tests
+    boolean isCurrent(Long userId) {
+        SearchIndex index = indexes.asMap().get(userId);
+        Long version = dataVersionService.current(userId);
+        return index != null && version != null && index.version() >= version;
+    }
+}
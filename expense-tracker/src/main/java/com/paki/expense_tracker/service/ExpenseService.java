@@ -0,0 +1,112 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class ExpenseService {
+
+    private final ExpenseRepository expenseRepository;
+    private final UserRepository userRepository;
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final SpendingRollupService spendingRollupService;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final UserEventService userEventService;
+    private final CategoryService categoryService;
+    private final ExpenseSnapshotService expenseSnapshotService;
+    private final ExpenseSearchService expenseSearchService;
+
+    @Transactional
+    public Expense add(Long userId, Expense expense) {
+        // Attach the expense to the user by reference (no lookup) and count it in the rollup
+        expense.setUser(userRepository.getReferenceById(userId));
+        expense.setCategory(categoryService.resolve(userId, expense.getCategory()));
+        Expense saved = expenseRepository.save(expense);
+        spendingRollupService.add(userId, categoryId(saved.getCategory()), saved.getDate(), saved.getAmountCents());
+        dataVersionService.bump(userId);
+        expenseSnapshotService.changed(userId, false, null, saved);
+        expenseSearchService.changed(userId, false, null, saved);
+        dashboardQueryService.evictExpenseViews(userId);
+        userEventService.changed(userId, "expense.created", ExpenseResponse.of(saved));
+        userEventService.categoryTotalsChanged(userId, Arrays.asList(saved.getCategory()));
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Expense> update(Long userId, Long expenseId, Expense expenseDetails) {
+        // Ownership is part of the lookup; empty means missing or owned by someone else
+        return expenseRepository.findByIdAndUserId(expenseId, userId).map(expense -> {
+            Category oldCategory = expense.getCategory();
+            LocalDate oldDate = expense.getDate();
+            long oldCents = expense.getAmountCents();
+
+            expense.setDescription(expenseDetails.getDescription());
+            expense.setCategory(categoryService.resolve(userId, expenseDetails.getCategory()));
+            expense.setAmountCents(expenseDetails.getAmountCents());
+            if (expenseDetails.getCurrency() != null) {
+                expense.setCurrency(expenseDetails.getCurrency());
+            }
+            expense.setDate(expenseDetails.getDate());
+            Expense saved = expenseRepository.save(expense);
+
+            spendingRollupService.move(userId, categoryId(oldCategory), oldDate, oldCents,
+                    categoryId(saved.getCategory()), saved.getDate(), saved.getAmountCents());
+            dataVersionService.bump(userId);
+            expenseSnapshotService.changed(userId, false, null, saved);
+            expenseSearchService.changed(userId, false, null, saved);
+            dashboardQueryService.evictExpenseViews(userId);
+            userEventService.changed(userId, "expense.updated", ExpenseResponse.of(saved));
+            userEventService.categoryTotalsChanged(userId, Arrays.asList(oldCategory, saved.getCategory()));
+            return saved;
+        });
+    }
+
+    @Transactional
+    public boolean delete(Long userId, Long expenseId) {
+        // Load first: the rollup needs the category, month and amount being removed
+        Optional<Expense> owned = expenseRepository.findByIdAndUserId(expenseId, userId);
+        if (owned.isEmpty()) {
+            return false;
+        }
+        Expense expense = owned.get();
+        expenseRepository.delete(expense);
+        spendingRollupService.remove(userId, categoryId(expense.getCategory()), expense.getDate(),
+                expense.getAmountCents());
+        dataVersionService.bump(userId);
+        expenseSnapshotService.changed(userId, false, expenseId, null);
+        expenseSearchService.changed(userId, false, expenseId, null);
+        dashboardQueryService.evictExpenseViews(userId);
+        userEventService.changed(userId, "expense.deleted", Map.of("id", expenseId));
+        userEventService.categoryTotalsChanged(userId, Arrays.asList(expense.getCategory()));
+        return true;
+    }
+
+    @Transactional
+    public void deleteAll(Long userId) {
+        expenseRepository.deleteByUserId(userId);
+        spendingRollupRepository.deleteByUserId(userId);
+        dataVersionService.bump(userId);
+        expenseSnapshotService.changed(userId, true, null, null);
+        expenseSearchService.changed(userId, true, null, null);
+        dashboardQueryService.evictExpenseViews(userId);
+        userEventService.changed(userId, "expenses.cleared", Map.of());
+    }
+
+    private static Integer categoryId(Category category) {
+        return category == null ? null : category.getId();
+    }
+}
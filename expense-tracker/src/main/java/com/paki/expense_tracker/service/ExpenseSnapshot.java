@@ -0,0 +1,328 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.ExpenseRow;
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// One user's expenses as parallel primitive columns, so analytics are loops over arrays rather than
+// entities. Rows are unordered: writes append or patch in place, and every read is a full scan.
+// An id-to-row hash index lets a write find its row without scanning.
+final class ExpenseSnapshot {
+
+    // Epoch day stored for undated expenses; outside every date range
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    // Object headers, the lock and the category tables, roughly
+    private static final long OVERHEAD_BYTES = 256;
+    private static final long BYTES_PER_CATEGORY = 96;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long version;
+    private int size;
+    private long[] ids;
+    private long[] cents;
+    private int[] days;
+    private short[] categories;
+    // Row of each id by open addressing with linear probing. A row is stored plus one, so 0 marks a free
+    // slot. There are twice as many slots as row capacity, so the table is never more than half full.
+    private long[] slotIds;
+    private int[] slotRows;
+
+    // Categories are numbered per snapshot so each row needs only a short
+    private final List<Integer> categoryIds = new ArrayList<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private final Map<Integer, Short> categoryIndexes = new HashMap<>();
+
+    private ExpenseSnapshot(long version, int capacity) {
+        this.version = version;
+        this.ids = new long[capacity];
+        this.cents = new long[capacity];
+        this.days = new int[capacity];
+        this.categories = new short[capacity];
+        this.slotIds = new long[capacity * 2];
+        this.slotRows = new int[capacity * 2];
+    }
+
+    // Throws if the user has more categories than a short can number
+    static ExpenseSnapshot load(long version, Iterator<ExpenseRow> rows) {
+        ExpenseSnapshot snapshot = new ExpenseSnapshot(version, 64);
+        while (rows.hasNext()) {
+            ExpenseRow row = rows.next();
+            int category = snapshot.categoryIndex(row);
+            if (category < 0) {
+                throw new IllegalStateException("Too many categories for a snapshot");
+            }
+            snapshot.append(row, (short) category);
+        }
+        return snapshot;
+    }
+
+    // Data version the columns reflect
+    long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies one committed write if it is the next version; otherwise leaves the snapshot alone.
+    // Writes are upserts and removals by id, so one the load already saw can be applied again.
+    boolean apply(long nextVersion, boolean cleared, Long removedId, ExpenseRow added) {
+        lock.writeLock().lock();
+        try {
+            if (nextVersion != version + 1) {
+                return false;
+            }
+            int category = added == null ? 0 : categoryIndex(added);
+            if (category < 0) {
+                return false;
+            }
+            if (cleared) {
+                size = 0;
+                Arrays.fill(slotRows, 0);
+            }
+            if (removedId != null) {
+                remove(removedId);
+            }
+            if (added != null) {
+                int row = rowOf(added.id());
+                if (row >= 0) {
+                    set(row, added, (short) category);
+                } else {
+                    append(added, (short) category);
+                }
+            }
+            version = nextVersion;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    SpendingSummary summarize(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long totalCents = 0;
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                int day = days[i];
+                if (day >= first && day <= last) {
+                    totalCents += cents[i];
+                    count++;
+                }
+            }
+            return new SpendingSummary(totalCents, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<CategoryTotal> totalsByCategory(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] totalCents = new long[categoryIds.size()];
+            long[] counts = new long[categoryIds.size()];
+            for (int i = 0; i < size; i++) {
+                int day = days[i];
+                if (day >= first && day <= last) {
+                    totalCents[categories[i]] += cents[i];
+                    counts[categories[i]]++;
+                }
+            }
+            List<CategoryTotal> totals = new ArrayList<>();
+            for (int c = 0; c < counts.length; c++) {
+                if (counts[c] > 0) {
+                    totals.add(new CategoryTotal(categoryIds.get(c), categoryNames.get(c), totalCents[c], counts[c]));
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<MonthlyCategoryTotal> monthlyTotalsByCategory(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        // First epoch day of each month in the range; a row's month is found by binary search
+        YearMonth firstMonth = YearMonth.from(from);
+        int months = (int) firstMonth.until(YearMonth.from(to), ChronoUnit.MONTHS) + 1;
+        int[] monthStarts = new int[months];
+        for (int m = 0; m < months; m++) {
+            monthStarts[m] = (int) firstMonth.plusMonths(m).atDay(1).toEpochDay();
+        }
+        lock.readLock().lock();
+        try {
+            // One bucket per category and month
+            long[] totalCents = new long[categoryIds.size() * months];
+            long[] counts = new long[categoryIds.size() * months];
+            for (int i = 0; i < size; i++) {
+                int day = days[i];
+                if (day >= first && day <= last) {
+                    int month = Arrays.binarySearch(monthStarts, day);
+                    int bucket = categories[i] * months + (month >= 0 ? month : -month - 2);
+                    totalCents[bucket] += cents[i];
+                    counts[bucket]++;
+                }
+            }
+            List<MonthlyCategoryTotal> totals = new ArrayList<>();
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                if (counts[bucket] > 0) {
+                    int c = bucket / months;
+                    YearMonth month = firstMonth.plusMonths(bucket % months);
+                    totals.add(new MonthlyCategoryTotal(categoryIds.get(c), categoryNames.get(c),
+                            month.getYear(), month.getMonthValue(), totalCents[bucket], counts[bucket]));
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Heap held by the columns, counting spare capacity
+    long bytes() {
+        lock.readLock().lock();
+        try {
+            return OVERHEAD_BYTES + (long) ids.length * (Long.BYTES + Long.BYTES + Integer.BYTES + Short.BYTES)
+                    + (long) slotRows.length * (Long.BYTES + Integer.BYTES)
+                    + BYTES_PER_CATEGORY * categoryIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Local number of the row's category, adding it on first sight; -1 once a short runs out
+    private int categoryIndex(ExpenseRow row) {
+        Short index = categoryIndexes.get(row.categoryId());
+        if (index != null) {
+            return index;
+        }
+        if (categoryIds.size() > Short.MAX_VALUE) {
+            return -1;
+        }
+        short next = (short) categoryIds.size();
+        categoryIds.add(row.categoryId());
+        categoryNames.add(row.category());
+        categoryIndexes.put(row.categoryId(), next);
+        return next;
+    }
+
+    private void append(ExpenseRow row, short category) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            days = Arrays.copyOf(days, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            slotIds = new long[capacity * 2];
+            slotRows = new int[capacity * 2];
+            for (int i = 0; i < size; i++) {
+                index(ids[i], i);
+            }
+        }
+        set(size, row, category);
+        index(row.id(), size);
+        size++;
+    }
+
+    private void set(int i, ExpenseRow row, short category) {
+        ids[i] = row.id();
+        cents[i] = row.amountCents();
+        days[i] = row.date() == null ? NO_DATE : (int) row.date().toEpochDay();
+        categories[i] = category;
+    }
+
+    // Order does not matter, so the last row fills the gap
+    private void remove(long id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return;
+        }
+        unindex(id);
+        size--;
+        if (row < size) {
+            ids[row] = ids[size];
+            cents[row] = cents[size];
+            days[row] = days[size];
+            categories[row] = categories[size];
+            index(ids[row], row);
+        }
+    }
+
+    // Row holding the id, or -1
+    private int rowOf(long id) {
+        int mask = slotRows.length - 1;
+        for (int slot = home(id, mask); slotRows[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotIds[slot] == id) {
+                return slotRows[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    // Points the id at a row, replacing where it pointed before
+    private void index(long id, int row) {
+        int mask = slotRows.length - 1;
+        int slot = home(id, mask);
+        while (slotRows[slot] != 0 && slotIds[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = id;
+        slotRows[slot] = row + 1;
+    }
+
+    // Frees the id's slot and moves later entries of the probe run back into it, so lookups
+    // never stop early at the gap and no tombstones build up
+    private void unindex(long id) {
+        int mask = slotRows.length - 1;
+        int gap = home(id, mask);
+        while (slotRows[gap] != 0 && slotIds[gap] != id) {
+            gap = (gap + 1) & mask;
+        }
+        if (slotRows[gap] == 0) {
+            return;
+        }
+        for (int next = (gap + 1) & mask; slotRows[next] != 0; next = (next + 1) & mask) {
+            // An entry may fill the gap only if the gap lies between its home slot and where it is now
+            if (((next - home(slotIds[next], mask)) & mask) >= ((next - gap) & mask)) {
+                slotIds[gap] = slotIds[next];
+                slotRows[gap] = slotRows[next];
+                gap = next;
+            }
+        }
+        slotRows[gap] = 0;
+    }
+
+    private static int home(long id, int mask) {
+        // Fibonacci hashing spreads consecutive ids across the table
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,222 @@
+package com.paki.expense_tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paki.expense_tracker.config.ReadYourWritesFilter;
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.ExpenseRow;
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Range totals, category stats and trends over an in-memory columnar snapshot of each active user's
+// expenses. A snapshot is only used while it matches the user's data version; until then (or when it
+// is cold or evicted) reads go to SQL and a rebuild runs in the background.
+@Slf4j
+@Service
+public class ExpenseSnapshotService {
+
+    private final ExpenseRepository expenseRepository;
+    private final UserRepository userRepository;
+    private final DataVersionService dataVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Cache<Long, ExpenseSnapshot> snapshots;
+    private final Set<Long> building = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor builder;
+    private final Counter snapshotReads;
+    private final Counter sqlReads;
+
+    // A committed expense write, in data-version order
+    public record Change(Long userId, long version, boolean cleared, Long removedId, ExpenseRow added) {
+    }
+
+    public ExpenseSnapshotService(
+            ExpenseRepository expenseRepository,
+            UserRepository userRepository,
+            DataVersionService dataVersionService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.snapshot.enabled:true}") boolean enabled,
+            @Value("${analytics.snapshot.max-bytes:67108864}") long maxBytes,
+            @Value("${analytics.snapshot.build-threads:1}") int buildThreads,
+            @Value("${analytics.snapshot.build-queue-capacity:16}") int buildQueueCapacity
+    ) {
+        this.expenseRepository = expenseRepository;
+        this.userRepository = userRepository;
+        this.dataVersionService = dataVersionService;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        // Bounded by heap bytes rather than users: one long history weighs as much as many short ones
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, ExpenseSnapshot snapshot) -> (int) Math.min(Integer.MAX_VALUE, snapshot.bytes()))
+                .recordStats()
+                .build();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("expense-snapshot-");
+        threadFactory.setDaemon(true);
+        this.builder = new ThreadPoolExecutor(buildThreads, buildThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(buildQueueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "expenseSnapshots");
+        Gauge.builder("analytics.snapshot.bytes", snapshots,
+                        cache -> cache.policy().eviction()
+                                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .description("Heap held by expense snapshots")
+                .register(meterRegistry);
+        Gauge.builder("analytics.snapshot.users", snapshots, Cache::estimatedSize)
+                .description("Users with an expense snapshot in memory")
+                .register(meterRegistry);
+        this.snapshotReads = Counter.builder("analytics.snapshot.reads").tag("source", "snapshot")
+                .register(meterRegistry);
+        this.sqlReads = Counter.builder("analytics.snapshot.reads").tag("source", "sql")
+                .register(meterRegistry);
+    }
+
+    public SpendingSummary summary(Long userId, LocalDate from, LocalDate to) {
+        ExpenseSnapshot snapshot = current(userId);
+        return snapshot == null ? expenseRepository.summarizeBetween(userId, from, to) : snapshot.summarize(from, to);
+    }
+
+    public List<CategoryTotal> categoryTotals(Long userId, LocalDate from, LocalDate to) {
+        ExpenseSnapshot snapshot = current(userId);
+        return snapshot == null
+                ? expenseRepository.totalsByCategoryBetween(userId, from, to)
+                : snapshot.totalsByCategory(from, to);
+    }
+
+    public List<MonthlyCategoryTotal> monthlyTotalsByCategory(Long userId, LocalDate from, LocalDate to) {
+        ExpenseSnapshot snapshot = current(userId);
+        return snapshot == null
+                ? expenseRepository.monthlyTotalsByCategoryBetween(userId, from, to)
+                : snapshot.monthlyTotalsByCategory(from, to);
+    }
+
+    // Called inside an expense write, after the data-version bump; applied once the write commits.
+    // Users without a snapshot pay nothing; for the rest this reads back the new version.
+    public void changed(Long userId, boolean cleared, Long removedId, Expense added) {
+        if (!enabled || !snapshots.asMap().containsKey(userId)) {
+            return;
+        }
+        long version = userRepository.findDataVersionById(userId).orElseThrow();
+        eventPublisher.publishEvent(new Change(userId, version, cleared, removedId,
+                added == null ? null : ExpenseRow.of(added)));
+    }
+
+    // The data version moved without touching expenses (budgets); keeps a snapshot in step
+    public void unchanged(Long userId) {
+        changed(userId, false, null, null);
+    }
+
+    @TransactionalEventListener
+    public void apply(Change change) {
+        // A change that is not the next version (writes committed out of order, or one that went
+        // untracked) is dropped; the snapshot then trails the data version and gets rebuilt
+        snapshots.asMap().computeIfPresent(change.userId(), (userId, snapshot) -> {
+            snapshot.apply(change.version(), change.cleared(), change.removedId(), change.added());
+            // Returned to the map so the weigher sees the new size
+            return snapshot;
+        });
+    }
+
+    // Snapshot for the user if it is current; otherwise counts a SQL read and starts a rebuild
+    private ExpenseSnapshot current(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        Long version = dataVersionService.current(userId);
+        ExpenseSnapshot snapshot = snapshots.getIfPresent(userId);
+        if (snapshot != null && version != null && snapshot.version() == version) {
+            snapshotReads.increment();
+            return snapshot;
+        }
+        sqlReads.increment();
+        if (version != null) {
+            build(userId);
+        }
+        return null;
+    }
+
+    private void build(Long userId) {
+        // One build per user at a time
+        if (!building.add(userId)) {
+            return;
+        }
+        try {
+            builder.execute(() -> {
+                try {
+                    ExpenseSnapshot snapshot = ReadYourWritesFilter.onPrimary(
+                            () -> readOnlyTransaction.execute(status -> load(userId)));
+                    if (snapshot != null) {
+                        snapshots.put(userId, snapshot);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not build the expense snapshot for user {}", userId, e);
+                } finally {
+                    building.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Builder is saturated; a later read asks again
+            building.remove(userId);
+        }
+    }
+
+    private ExpenseSnapshot load(Long userId) {
+        // Version first: rows read after it can only be newer, and replaying those writes is harmless
+        Long version = userRepository.findDataVersionById(userId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        try (Stream<ExpenseRow> rows = expenseRepository.streamRowsByUserId(userId)) {
+            return ExpenseSnapshot.load(version, rows.iterator());
+        }
+    }
+
+    // Drops a deleted user's snapshot
+    public void evict(Long userId) {
+        snapshots.invalidate(userId);
+    }
+
+    // Whether the user's reads would be served from a current snapshot; for tests
+    boolean isWarm(Long userId) {
+        ExpenseSnapshot snapshot = snapshots.asMap().get(userId);
+        Long version = dataVersionService.current(userId);
+        return snapshot != null && version != null && snapshot.version() == version;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+}
@@ -0,0 +1,326 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.config.ReadYourWritesFilter;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.ExportStatus;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Full-history CSV exports built in the background: rows are streamed from a forward-only cursor into a
+// gzip file on local disk, then served from there. Jobs live in memory and their files are deleted once
+// they expire; a restart forgets both.
+@Slf4j
+@Service
+public class ExportJobService {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    private static final String HEADER = "id,date,description,category,amount,currency,created_at,updated_at\n";
+    // Deflater output is handed to the channel in chunks of this size
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Rows between progress updates
+    private static final int PROGRESS_STEP = 1000;
+
+    private final ExpenseRepository expenseRepository;
+    private final DataVersionService dataVersionService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Each user's latest job, which a repeated request gets back instead of a new one
+    private final Map<Long, Job> latestByUser = new ConcurrentHashMap<>();
+    private final Counter done;
+    private final Counter failed;
+    private final Counter deduplicated;
+
+    public ExportJobService(
+            ExpenseRepository expenseRepository,
+            DataVersionService dataVersionService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${exports.directory:${java.io.tmpdir}/expense-tracker-exports}") String directory,
+            @Value("${exports.ttl-ms:3600000}") long ttlMillis,
+            @Value("${exports.threads:2}") int threads,
+            @Value("${exports.queue-capacity:16}") int queueCapacity
+    ) throws IOException {
+        this.expenseRepository = expenseRepository;
+        this.dataVersionService = dataVersionService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.ttl = Duration.ofMillis(ttlMillis);
+        // Fixed pool with a bounded queue; once both are full new exports are turned away
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("expense-export-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("exports.jobs.active", executor, pool -> pool.getActiveCount() + pool.getQueue().size())
+                .description("Export jobs queued or running")
+                .register(meterRegistry);
+        this.done = Counter.builder("exports.jobs").tag("outcome", "done").register(meterRegistry);
+        this.failed = Counter.builder("exports.jobs").tag("outcome", "failed").register(meterRegistry);
+        this.deduplicated = Counter.builder("exports.jobs").tag("outcome", "deduplicated").register(meterRegistry);
+    }
+
+    // Starts an export, or returns the user's current one: a job still queued or running, or a finished
+    // one nothing has been written since. Throws RejectedExecutionException when the pool is saturated.
+    public ExportStatus start(Long userId) {
+        Long version = dataVersionService.current(userId);
+        if (version == null) {
+            throw new RuntimeException("User not found");
+        }
+        Job job = latestByUser.compute(userId, (id, existing) -> {
+            if (existing != null && existing.reusableAt(version)) {
+                deduplicated.increment();
+                return existing;
+            }
+            Job created = new Job(UUID.randomUUID().toString(), userId, version);
+            // A rejection propagates out of compute and leaves the previous job in place
+            executor.execute(() -> run(created));
+            jobs.put(created.id, created);
+            return created;
+        });
+        return job.status();
+    }
+
+    public Optional<ExportStatus> status(Long userId, String jobId) {
+        return find(userId, jobId).map(Job::status);
+    }
+
+    // The finished file of a job, if it belongs to the user and is done
+    public Optional<Path> file(Long userId, String jobId) {
+        return find(userId, jobId).filter(job -> job.state == State.DONE).map(job -> file(job.id));
+    }
+
+    // Copies a finished file to the response with FileChannel.transferTo; used when the container
+    // cannot send the file itself
+    public void transferTo(Path file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+        out.flush();
+    }
+
+    // Drops a deleted user's jobs and their files. A job still running removes its own file when it ends.
+    public void removeUser(Long userId) {
+        latestByUser.remove(userId);
+        jobs.values().removeIf(job -> {
+            if (!job.userId.equals(userId)) {
+                return false;
+            }
+            delete(file(job.id));
+            return true;
+        });
+    }
+
+    @Scheduled(fixedRateString = "${exports.cleanup-ms:60000}")
+    public void removeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            if (job.completedAt == null || job.completedAt.isAfter(cutoff)) {
+                return false;
+            }
+            latestByUser.remove(job.userId, job);
+            delete(file(job.id));
+            return true;
+        });
+        // Files no job owns any more, such as those left by an earlier run, go after the same time. A job
+        // still held is left alone: one running longer than the TTL is writing its .part file right now.
+        long cutoffMillis = System.currentTimeMillis() - ttl.toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.csv.gz*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (jobs.containsKey(name.substring(0, name.indexOf(".csv.gz")))) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(file).toMillis() < cutoffMillis) {
+                    delete(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep the export directory {}", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Optional<Job> find(Long userId, String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(job -> job.userId.equals(userId));
+    }
+
+    private void run(Job job) {
+        job.state = State.RUNNING;
+        Path part = directory.resolve(job.id + ".csv.gz.part");
+        // Failed unless it gets to the end; an Error thrown on the way must not leave the job running
+        State outcome = State.FAILED;
+        try {
+            // The job is stamped with the version it started at, so it reads what that version wrote
+            ReadYourWritesFilter.onPrimary(() -> readOnlyTransaction.execute(status -> {
+                job.totalRows = expenseRepository.summarizeByUserId(job.userId).count();
+                write(job, part);
+                return null;
+            }));
+            // Only complete files carry the final name
+            Files.move(part, file(job.id), StandardCopyOption.ATOMIC_MOVE);
+            outcome = State.DONE;
+            done.increment();
+        } catch (RuntimeException | IOException e) {
+            log.warn("Export {} for user {} failed", job.id, job.userId, e);
+        } finally {
+            if (outcome == State.FAILED) {
+                delete(part);
+                job.error = "Export failed.";
+                failed.increment();
+            }
+            job.completedAt = LocalDateTime.now();
+            job.state = outcome;
+            // Its user was deleted while it ran
+            if (jobs.get(job.id) != job) {
+                delete(file(job.id));
+            }
+        }
+    }
+
+    private void write(Job job, Path part) {
+        try (FileChannel channel = FileChannel.open(part,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer writer = new OutputStreamWriter(
+                     new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES), StandardCharsets.UTF_8);
+             Stream<ExpenseResponse> expenses = expenseRepository.streamResponsesByUserId(job.userId)) {
+            writer.write(HEADER);
+            long rows = 0;
+            Iterator<ExpenseResponse> iterator = expenses.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, iterator.next());
+                if (++rows % PROGRESS_STEP == 0) {
+                    job.rows = rows;
+                }
+            }
+            job.rows = rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeRow(Writer writer, ExpenseResponse expense) throws IOException {
+        writer.write(String.valueOf(expense.id()));
+        writer.write(',');
+        writer.write(expense.date() == null ? "" : expense.date().toString());
+        writer.write(',');
+        writer.write(csv(expense.description()));
+        writer.write(',');
+        writer.write(csv(expense.category()));
+        writer.write(',');
+        writer.write(expense.amount().toPlainString());
+        writer.write(',');
+        writer.write(csv(expense.currency()));
+        writer.write(',');
+        writer.write(expense.createdAt() == null ? "" : expense.createdAt().toString());
+        writer.write(',');
+        writer.write(expense.updatedAt() == null ? "" : expense.updatedAt().toString());
+        writer.write('\n');
+    }
+
+    // Quotes a text field when needed; a leading formula character is defused so spreadsheets show it as text
+    static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private Path file(String jobId) {
+        return directory.resolve(jobId + ".csv.gz");
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    private static final class Job {
+
+        final String id;
+        final Long userId;
+        final long version;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile State state = State.QUEUED;
+        volatile long rows;
+        volatile long totalRows;
+        volatile LocalDateTime completedAt;
+        volatile String error;
+
+        Job(String id, Long userId, long version) {
+            this.id = id;
+            this.userId = userId;
+            this.version = version;
+        }
+
+        boolean reusableAt(long currentVersion) {
+            return state == State.QUEUED || state == State.RUNNING
+                    || (state == State.DONE && version == currentVersion);
+        }
+
+        ExportStatus status() {
+            return new ExportStatus(id, state.name(), rows, totalRows, createdAt, completedAt, error);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final String dummyHash;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            UserRepository userRepository,
+            @Value("${security.bcrypt.strength:10}") int strength,
+            @Value("${security.hashing.threads:2}") int threads,
+            @Value("${security.hashing.queue-capacity:64}") int queueCapacity
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.strength = strength;
+        // Fixed pool with a bounded queue; once both are full submissions are rejected
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hash-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        // Unknown emails are checked against this so they take as long as a real login
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    // Hash a new password off the request thread; throws RejectedExecutionException when saturated
+    public CompletableFuture<String> encode(String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+    }
+
+    // Check a password against a stored hash, or against the dummy hash when there is none
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (encodedPassword == null) {
+                passwordEncoder.matches(rawPassword, dummyHash);
+                return false;
+            }
+            return passwordEncoder.matches(rawPassword, encodedPassword);
+        }, executor);
+    }
+
+    // After a successful login, rehash in the background if the stored cost is not the configured one
+    public void upgradeIfNeeded(Long userId, String rawPassword, String encodedPassword) {
+        if (costOf(encodedPassword) == strength) {
+            return;
+        }
+        try {
+            encode(rawPassword)
+                    .thenAccept(hash -> userRepository.updatePassword(userId, encodedPassword, hash))
+                    .exceptionally(ex -> {
+                        log.warn("Could not rehash password for user {}", userId, ex);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // Busy with logins; the next one will try again
+            log.debug("Skipped password rehash for user {}, hashing queue is full", userId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Cost factor of a "$2a$10$..." hash, or -1 if it is not in that format
+    private static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
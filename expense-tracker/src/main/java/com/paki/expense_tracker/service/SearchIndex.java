@@ -0,0 +1,305 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.ExpenseText;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// One user's inverted index over expense descriptions: each term maps to the sorted ids of the expenses
+// containing it. Terms are kept in order, so the terms starting with a prefix are one contiguous range.
+final class SearchIndex {
+
+    // Words are cut to this many characters, in descriptions and queries alike
+    static final int MAX_TERM_LENGTH = 32;
+    // Epoch day stored for undated expenses; outside every date range
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NO_CATEGORY = Integer.MIN_VALUE;
+    // Heap costs, roughly: the index itself, each term (string, tree node, postings header) and each expense
+    private static final long OVERHEAD_BYTES = 256;
+    private static final long BYTES_PER_TERM = 120;
+    private static final long BYTES_PER_EXPENSE = 104;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long version;
+    // Kept up to date as postings change, so the weight is known without walking the index
+    private long termChars;
+    private long postingSlots;
+    private long termRefs;
+
+    private SearchIndex(long version) {
+        this.version = version;
+    }
+
+    // Rows in ascending id order keep every postings list append-only while loading
+    static SearchIndex load(long version, Iterator<ExpenseText> rows) {
+        SearchIndex index = new SearchIndex(version);
+        while (rows.hasNext()) {
+            index.add(rows.next());
+        }
+        return index;
+    }
+
+    // Lower-cased runs of letters and digits, each once, in order of appearance
+    static String[] terms(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        Set<String> found = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                found.add(lower.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return found.toArray(new String[0]);
+    }
+
+    // Data version the index reflects
+    long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies one committed write if it is the next version; otherwise leaves the index alone.
+    // Writes are upserts and removals by id, so one the load already saw can be applied again.
+    boolean apply(long nextVersion, boolean cleared, Long removedId, ExpenseText added) {
+        lock.writeLock().lock();
+        try {
+            if (nextVersion != version + 1) {
+                return false;
+            }
+            if (cleared) {
+                terms.clear();
+                entries.clear();
+                termChars = 0;
+                postingSlots = 0;
+                termRefs = 0;
+            }
+            if (removedId != null) {
+                remove(removedId);
+            }
+            if (added != null) {
+                remove(added.id());
+                add(added);
+            }
+            version = nextVersion;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the expenses whose description has a word starting with every prefix, newest first
+    // (by date, then id), narrowed to a category and a date range when those are given
+    long[] search(String[] prefixes, Integer categoryId, LocalDate from, LocalDate to, int limit) {
+        lock.readLock().lock();
+        try {
+            long[][] lists = new long[prefixes.length][];
+            for (int i = 0; i < prefixes.length; i++) {
+                lists[i] = matching(prefixes[i]);
+                if (lists[i].length == 0) {
+                    return new long[0];
+                }
+            }
+            // Shortest list first, so every intersection is bounded by it
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+            long[] matches = lists[0];
+            for (int i = 1; i < lists.length && matches.length > 0; i++) {
+                matches = intersect(matches, lists[i]);
+            }
+
+            int category = categoryId == null ? NO_CATEGORY : categoryId;
+            boolean dated = from != null || to != null;
+            int first = from == null ? NO_DATE + 1 : (int) from.toEpochDay();
+            int last = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+            return Arrays.stream(matches)
+                    .filter(id -> {
+                        Entry entry = entries.get(id);
+                        return (categoryId == null || entry.category == category)
+                                && (!dated || (entry.day >= first && entry.day <= last));
+                    })
+                    .boxed()
+                    .sorted(Comparator.comparingInt((Long id) -> entries.get(id).day)
+                            .thenComparingLong(id -> id)
+                            .reversed())
+                    .limit(limit)
+                    .mapToLong(Long::longValue)
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Heap held by the index, roughly
+    long bytes() {
+        lock.readLock().lock();
+        try {
+            return OVERHEAD_BYTES
+                    + terms.size() * BYTES_PER_TERM + 2 * termChars
+                    + 8 * postingSlots + 4 * termRefs
+                    + entries.size() * BYTES_PER_EXPENSE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(ExpenseText row) {
+        String[] words = terms(row.description());
+        Postings[] postings = new Postings[words.length];
+        for (int i = 0; i < words.length; i++) {
+            Postings list = terms.get(words[i]);
+            if (list == null) {
+                list = new Postings(words[i]);
+                terms.put(words[i], list);
+                termChars += words[i].length();
+                postingSlots += list.ids.length;
+            }
+            postingSlots += list.add(row.id());
+            postings[i] = list;
+        }
+        termRefs += postings.length;
+        int day = row.date() == null ? NO_DATE : (int) row.date().toEpochDay();
+        int category = row.categoryId() == null ? NO_CATEGORY : row.categoryId();
+        entries.put(row.id(), new Entry(postings, day, category));
+    }
+
+    private void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (Postings list : entry.postings) {
+            list.remove(id);
+            if (list.size == 0) {
+                terms.remove(list.term);
+                termChars -= list.term.length();
+                postingSlots -= list.ids.length;
+            }
+        }
+        termRefs -= entry.postings.length;
+    }
+
+    // Sorted ids of every expense with a term starting with the prefix
+    private long[] matching(String prefix) {
+        // Terms are letters and digits only, so none reaches the highest char after the prefix
+        Collection<Postings> lists = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (lists.size() == 1) {
+            Postings only = lists.iterator().next();
+            return Arrays.copyOf(only.ids, only.size);
+        }
+        int total = 0;
+        for (Postings list : lists) {
+            total += list.size;
+        }
+        long[] union = new long[total];
+        int at = 0;
+        for (Postings list : lists) {
+            System.arraycopy(list.ids, 0, union, at, list.size);
+            at += list.size;
+        }
+        Arrays.sort(union);
+        // An expense with several matching terms appears once
+        int distinct = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    // Ids in both sorted arrays; a much shorter one is looked up by binary search instead of merged
+    private static long[] intersect(long[] shorter, long[] longer) {
+        long[] both = new long[shorter.length];
+        int count = 0;
+        if (shorter.length * 8L < longer.length) {
+            for (long id : shorter) {
+                if (Arrays.binarySearch(longer, id) >= 0) {
+                    both[count++] = id;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < shorter.length && j < longer.length) {
+                if (shorter[i] < longer[j]) {
+                    i++;
+                } else if (shorter[i] > longer[j]) {
+                    j++;
+                } else {
+                    both[count++] = shorter[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+
+    // One expense: the postings its id is in, so a removal touches only those, and its filter columns
+    private record Entry(Postings[] postings, int day, int category) {
+    }
+
+    // Ascending expense ids for one term
+    private static final class Postings {
+
+        final String term;
+        long[] ids = new long[2];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        // Returns how many slots the array grew by
+        int add(long id) {
+            int at = size == 0 || id > ids[size - 1] ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0 && at < size) {
+                return 0;
+            }
+            if (at < 0) {
+                at = -at - 1;
+            }
+            int grown = 0;
+            if (size == ids.length) {
+                grown = ids.length;
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+            return grown;
+        }
+
+        void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
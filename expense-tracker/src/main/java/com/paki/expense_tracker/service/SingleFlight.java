@@ -0,0 +1,61 @@
+package com.paki.expense_tracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Concurrent identical reads share one computation: the first caller runs it, the rest wait for its result.
+// Nothing is kept once it finishes, so this never serves stale data; it only collapses bursts.
+@Component
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("singleflight.requests")
+                .description("Reads that ran their own computation or joined one in flight")
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.followers = Counter.builder("singleflight.requests")
+                .description("Reads that ran their own computation or joined one in flight")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T run(String key, Supplier<T> work) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            followers.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                // Same failure as the caller that ran it
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        leaders.increment();
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.RollupDrift;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpendingRollupJob {
+
+    private final SpendingRollupService spendingRollupService;
+    private final UserRepository userRepository;
+
+    @Value("${rollup.verify.repair:true}")
+    private boolean repair;
+
+    @Scheduled(cron = "${rollup.verify.cron:0 30 3 * * *}")
+    public void verifyAll() {
+        // Recompute every user's rollup and report (and optionally repair) drift
+        int drifted = 0;
+        for (Long userId : userRepository.findAllIds()) {
+            List<RollupDrift> drift = spendingRollupService.verify(userId);
+            if (drift.isEmpty()) {
+                continue;
+            }
+            drifted++;
+            log.warn("Spending rollup for user {} drifted in {} buckets: {}", userId, drift.size(), drift);
+            if (repair) {
+                // Applied as deltas, so writes made since the check above are kept
+                spendingRollupService.rebuild(userId);
+            }
+        }
+        log.info("Spending rollup verification finished, {} users drifted", drifted);
+    }
+}
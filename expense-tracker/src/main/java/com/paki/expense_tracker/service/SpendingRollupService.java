@@ -0,0 +1,158 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.RollupDrift;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.SpendingRollup;
+import com.paki.expense_tracker.repository.CategoryRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class SpendingRollupService {
+
+
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final DashboardQueryService dashboardQueryService;
+    private final DataVersionService dataVersionService;
+    private final BudgetAlertService budgetAlertService;
+
+    // Must join the caller's transaction so the rollup and the expense change commit together
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Long userId, Integer categoryId, LocalDate date, long cents) {
+        spendingRollupRepository.addToRollup(userId, categoryKey(categoryId), monthKey(monthStart(date)), cents, 1);
+        budgetAlertService.spendingAdded(userId, categoryId, monthStart(date), cents);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Long userId, Integer categoryId, LocalDate date, long cents) {
+        spendingRollupRepository.addToRollup(userId, categoryKey(categoryId), monthKey(monthStart(date)), -cents, -1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void move(Long userId, Integer oldCategory, LocalDate oldDate, long oldCents,
+                     Integer newCategory, LocalDate newDate, long newCents) {
+        // Same bucket: a single amount delta; otherwise take it out of one bucket and put it in another
+        LocalDate oldMonth = monthStart(oldDate);
+        LocalDate newMonth = monthStart(newDate);
+        if (Objects.equals(oldCategory, newCategory) && Objects.equals(oldMonth, newMonth)) {
+            if (newCents != oldCents) {
+                spendingRollupRepository.addToRollup(userId, categoryKey(newCategory), monthKey(newMonth),
+                        newCents - oldCents, 0);
+                budgetAlertService.spendingAdded(userId, newCategory, newMonth, newCents - oldCents);
+            }
+            return;
+        }
+        spendingRollupRepository.addToRollup(userId, categoryKey(oldCategory), monthKey(oldMonth), -oldCents, -1);
+        spendingRollupRepository.addToRollup(userId, categoryKey(newCategory), monthKey(newMonth), newCents, 1);
+        budgetAlertService.spendingAdded(userId, newCategory, newMonth, newCents);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(Long userId, List<Expense> expenses) {
+        // Collapse a batch into one upsert per (category, month)
+        Map<List<Object>, long[]> buckets = new HashMap<>();
+        for (Expense expense : expenses) {
+            Integer categoryId = expense.getCategory() == null ? null : expense.getCategory().getId();
+            List<Object> key = Arrays.asList(categoryId, monthStart(expense.getDate()));
+            long[] bucket = buckets.computeIfAbsent(key, k -> new long[2]);
+            bucket[0] += expense.getAmountCents();
+            bucket[1]++;
+        }
+        buckets.forEach((key, bucket) -> {
+            spendingRollupRepository.addToRollup(userId, categoryKey((Integer) key.get(0)),
+                    monthKey((LocalDate) key.get(1)), bucket[0], bucket[1]);
+            budgetAlertService.spendingAdded(userId, (Integer) key.get(0), (LocalDate) key.get(1), bucket[0]);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<RollupDrift> verify(Long userId) {
+        return drift(userId);
+    }
+
+    // Bring the user's rollup back in line with their expenses. Each drifted bucket gets the difference added
+    // through the same upsert that writes use, rather than the rows being deleted and reinserted: an expense
+    // written meanwhile adds its own delta on top, so it is neither lost nor counted twice.
+    // Both tables are read from one snapshot, so the drift is the difference at a single point in time.
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public List<RollupDrift> rebuild(Long userId) {
+        List<RollupDrift> drift = drift(userId);
+        if (drift.isEmpty()) {
+            return drift;
+        }
+        for (RollupDrift bucket : drift) {
+            spendingRollupRepository.addToRollup(userId, categoryKey(bucket.categoryId()), monthKey(bucket.monthStart()),
+                    bucket.expectedCents() - bucket.actualCents(), bucket.expectedCount() - bucket.actualCount());
+        }
+        dataVersionService.bump(userId);
+        dashboardQueryService.evictExpenseViews(userId);
+        return drift;
+    }
+
+    private List<RollupDrift> drift(Long userId) {
+        // Recompute from the expense table and report every bucket that disagrees
+        Map<List<Object>, MonthlyCategoryTotal> expected = new HashMap<>();
+        for (MonthlyCategoryTotal total : expenseRepository.monthlyTotalsByCategory(userId)) {
+            expected.put(Arrays.asList(total.categoryId(), total.monthStart()), total);
+        }
+        Map<List<Object>, long[]> actual = new HashMap<>();
+        for (SpendingRollup rollup : spendingRollupRepository.findByUserId(userId)) {
+            // Sentinel keys back to null, as the expense table reports them
+            Integer categoryId = rollup.getCategoryId() == SpendingRollup.NO_CATEGORY ? null : rollup.getCategoryId();
+            LocalDate month = SpendingRollup.NO_MONTH.equals(rollup.getMonthStart()) ? null : rollup.getMonthStart();
+            long[] bucket = actual.computeIfAbsent(Arrays.asList(categoryId, month), k -> new long[2]);
+            bucket[0] += rollup.getTotalCents();
+            bucket[1] += rollup.getExpenseCount();
+        }
+
+        Set<List<Object>> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        List<RollupDrift> drift = new ArrayList<>();
+        Map<Integer, String> names = null;
+        for (List<Object> key : keys) {
+            MonthlyCategoryTotal want = expected.get(key);
+            long[] have = actual.getOrDefault(key, new long[2]);
+            long expectedCents = want == null ? 0 : want.totalCents();
+            long expectedCount = want == null ? 0 : want.count();
+            if (expectedCents != have[0] || expectedCount != have[1]) {
+                if (names == null) {
+                    // Only needed to label drift, which is rare
+                    names = new HashMap<>();
+                    for (Category category : categoryRepository.findByUserId(userId)) {
+                        names.put(category.getId(), category.getName());
+                    }
+                }
+                Integer categoryId = (Integer) key.get(0);
+                drift.add(new RollupDrift(categoryId, names.get(categoryId), (LocalDate) key.get(1),
+                        expectedCents, have[0], expectedCount, have[1]));
+            }
+        }
+        return drift;
+    }
+
+    private static LocalDate monthStart(LocalDate date) {
+        return date == null ? null : date.withDayOfMonth(1);
+    }
+
+    // Rollup key columns are never null
+    private static int categoryKey(Integer categoryId) {
+        return categoryId == null ? SpendingRollup.NO_CATEGORY : categoryId;
+    }
+
+    private static LocalDate monthKey(LocalDate monthStart) {
+        return monthStart == null ? SpendingRollup.NO_MONTH : monthStart;
+    }
+}
@@ -0,0 +1,101 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.Money;
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.SpendingTrends;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class TrendService {
+
+    private final ExpenseSnapshotService expenseSnapshotService;
+    private final BudgetRepository budgetRepository;
+
+    @Transactional(readOnly = true)
+    public SpendingTrends trends(Long userId, YearMonth to, int months, int window, LocalDate today) {
+        YearMonth from = to.minusMonths(months - 1);
+
+        // One grouped row per category and month; everything else is built from these in memory
+        long[] monthCents = new long[months];
+        long[] monthCounts = new long[months];
+        Map<Integer, long[]> categoryCents = new HashMap<>();
+        Map<Integer, String> categoryNames = new HashMap<>();
+        for (MonthlyCategoryTotal row : expenseSnapshotService.monthlyTotalsByCategory(
+                userId, from.atDay(1), to.atEndOfMonth())) {
+            int index = (int) from.until(YearMonth.of(row.year(), row.month()), ChronoUnit.MONTHS);
+            monthCents[index] += row.totalCents();
+            monthCounts[index] += row.count();
+            categoryCents.computeIfAbsent(row.categoryId(), k -> new long[months])[index] += row.totalCents();
+            categoryNames.put(row.categoryId(), row.category());
+        }
+
+        // Trailing average over the last `window` months, fewer at the start of the range
+        List<SpendingTrends.Month> monthTrends = new ArrayList<>(months);
+        long windowCents = 0;
+        for (int i = 0; i < months; i++) {
+            windowCents += monthCents[i];
+            if (i >= window) {
+                windowCents -= monthCents[i - window];
+            }
+            long averageCents = Math.round((double) windowCents / Math.min(i + 1, window));
+            monthTrends.add(new SpendingTrends.Month(from.plusMonths(i), monthCents[i], monthCounts[i], averageCents));
+        }
+
+        // Biggest categories first
+        List<SpendingTrends.Category> categories = new ArrayList<>(categoryCents.size());
+        categoryCents.forEach((categoryId, cents) -> {
+            long totalCents = 0;
+            for (long monthTotal : cents) {
+                totalCents += monthTotal;
+            }
+            categories.add(new SpendingTrends.Category(categoryNames.get(categoryId), totalCents, cents));
+        });
+        categories.sort(Comparator.comparingLong(SpendingTrends.Category::totalCents).reversed());
+
+        return new SpendingTrends(from, to, window, monthTrends, categories,
+                projections(userId, from, to, today, categoryCents));
+    }
+
+    private List<SpendingTrends.Projection> projections(
+            Long userId, YearMonth from, YearMonth to, LocalDate today, Map<Integer, long[]> categoryCents
+    ) {
+        // Only the current month can be projected, and only if the window covers it
+        YearMonth current = YearMonth.from(today);
+        if (current.isBefore(from) || current.isAfter(to)) {
+            return List.of();
+        }
+        int index = (int) from.until(current, ChronoUnit.MONTHS);
+        List<Budget> budgets = budgetRepository.findByUserId(userId);
+        List<SpendingTrends.Projection> projections = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            Category category = budget.getCategory();
+            long[] cents = category == null ? null : categoryCents.get(category.getId());
+            long spentCents = cents == null ? 0 : cents[index];
+            long projectedCents = Math.round((double) spentCents * current.lengthOfMonth() / today.getDayOfMonth());
+            projections.add(new SpendingTrends.Projection(
+                    budget.getId(),
+                    category == null ? null : category.getName(),
+                    budget.getAmountCents(),
+                    spentCents,
+                    projectedCents,
+                    Money.percentage(projectedCents, budget.getAmountCents())
+            ));
+        }
+        return projections;
+    }
+}
@@ -0,0 +1,377 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.Money;
+import com.paki.expense_tracker.entity.BudgetAlert;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user change feed behind GET /api/users/{userId}/events.
+// Producers only append to a ring buffer and offer to bounded per-subscriber queues; a small pool writes to the
+// connections. A subscriber whose queue is full is disconnected, and reconnects with Last-Event-ID.
+@Slf4j
+@Service
+public class UserEventService {
+
+    private static final Event HEARTBEAT = new Event(0, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final Executor executor;
+    private final int queueCapacity;
+    private final int replaySize;
+    private final int maxSubscribersPerUser;
+    private final long timeoutMillis;
+
+    private final Map<Long, UserStream> streams = new ConcurrentHashMap<>();
+    // Ids are global and start at the boot time, so ids from before a restart are always older
+    private final AtomicLong lastId = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @Value("${events.sse.retention-ms:300000}")
+    private long retentionMillis;
+
+    @Autowired
+    public UserEventService(
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            SpendingRollupRepository spendingRollupRepository,
+            @Value("${events.sse.threads:2}") int threads,
+            @Value("${events.sse.queue-capacity:64}") int queueCapacity,
+            @Value("${events.sse.replay-size:50}") int replaySize,
+            @Value("${events.sse.max-subscribers-per-user:5}") int maxSubscribersPerUser,
+            @Value("${events.sse.timeout-ms:1800000}") long timeoutMillis
+    ) {
+        this(objectMapper, eventPublisher, spendingRollupRepository, newExecutor(threads),
+                queueCapacity, replaySize, maxSubscribersPerUser, timeoutMillis);
+    }
+
+    UserEventService(
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            SpendingRollupRepository spendingRollupRepository,
+            Executor executor,
+            int queueCapacity,
+            int replaySize,
+            int maxSubscribersPerUser,
+            long timeoutMillis
+    ) {
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.spendingRollupRepository = spendingRollupRepository;
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.replaySize = replaySize;
+        this.maxSubscribersPerUser = maxSubscribersPerUser;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    private static Executor newExecutor(int threads) {
+        // Writers only; each subscriber is drained by at most one of them at a time
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-events-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    // A change inside a write transaction; delivered only if it commits
+    public record Change(Long userId, String type, Object data) {
+    }
+
+    record Event(long id, String type, String json) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Event> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private static final class UserStream {
+        final Set<Subscriber> subscribers = new LinkedHashSet<>();
+        final ArrayDeque<Event> recent = new ArrayDeque<>();
+        // Events up to this id may have been dropped from `recent`
+        long forgottenThrough;
+        long lastActivity = System.currentTimeMillis();
+        boolean closed;
+
+        UserStream(long forgottenThrough) {
+            this.forgottenThrough = forgottenThrough;
+        }
+    }
+
+    // Whether anyone is, or recently was, listening to this user; changes for anyone else are not built at all
+    public boolean isWatched(Long userId) {
+        return streams.containsKey(userId);
+    }
+
+    public void changed(Long userId, String type, Object data) {
+        if (isWatched(userId)) {
+            eventPublisher.publishEvent(new Change(userId, type, data));
+        }
+    }
+
+    // New totals for the categories a write touched, read inside the write's transaction
+    public void categoryTotalsChanged(Long userId, Collection<Category> categories) {
+        if (!isWatched(userId)) {
+            return;
+        }
+        Map<Integer, String> touched = new LinkedHashMap<>();
+        for (Category category : categories) {
+            if (category != null) {
+                touched.put(category.getId(), category.getName());
+            }
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+        Map<Integer, CategoryTotal> found = new HashMap<>();
+        for (CategoryTotal total : spendingRollupRepository.totalsForCategories(userId, touched.keySet())) {
+            found.put(total.categoryId(), total);
+        }
+        List<Map<String, Object>> totals = new ArrayList<>(touched.size());
+        touched.forEach((categoryId, category) -> {
+            CategoryTotal total = found.get(categoryId);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("category", category);
+            entry.put("total", Money.toDecimal(total == null ? 0 : total.totalCents()));
+            entry.put("count", total == null ? 0 : total.count());
+            totals.add(entry);
+        });
+        changed(userId, "category.totals", totals);
+    }
+
+    // Null when the user already has the maximum number of open streams
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), queueCapacity);
+        while (true) {
+            UserStream stream = streams.computeIfAbsent(userId, id -> new UserStream(lastId.get()));
+            synchronized (stream) {
+                if (stream.closed) {
+                    // Swept between lookup and lock; take the replacement
+                    continue;
+                }
+                if (stream.subscribers.size() >= maxSubscribersPerUser) {
+                    return null;
+                }
+                // Replay under the lock so no live event can slip in between
+                replay(stream, subscriber, parseId(lastEventId));
+                stream.subscribers.add(subscriber);
+                stream.lastActivity = System.currentTimeMillis();
+            }
+            break;
+        }
+        Runnable remove = () -> remove(userId, subscriber);
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscriber.emitter.onError(ex -> remove.run());
+        schedule(userId, subscriber);
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener
+    public void onChange(Change change) {
+        broadcast(change.userId(), change.type(), change.data());
+    }
+
+    @TransactionalEventListener
+    public void onAlertsRaised(BudgetAlertService.AlertsRaised raised) {
+        for (BudgetAlert alert : raised.alerts()) {
+            broadcast(raised.userId(), "budget.alert", alert);
+        }
+    }
+
+    void broadcast(Long userId, String type, Object data) {
+        UserStream stream = streams.get(userId);
+        if (stream == null) {
+            return;
+        }
+        String json = objectMapper.writeValueAsString(data);
+        List<Subscriber> ready = new ArrayList<>();
+        List<Subscriber> slow = new ArrayList<>();
+        synchronized (stream) {
+            Event event = new Event(lastId.incrementAndGet(), type, json);
+            stream.recent.addLast(event);
+            if (stream.recent.size() > replaySize) {
+                stream.forgottenThrough = stream.recent.removeFirst().id();
+            }
+            stream.lastActivity = System.currentTimeMillis();
+            offer(stream, event, ready, slow);
+        }
+        disconnect(slow);
+        ready.forEach(subscriber -> schedule(userId, subscriber));
+    }
+
+    // The account is gone: its open streams are completed and its buffered events dropped
+    public void removeUser(Long userId) {
+        UserStream stream = streams.remove(userId);
+        if (stream == null) {
+            return;
+        }
+        List<Subscriber> subscribers;
+        synchronized (stream) {
+            stream.closed = true;
+            subscribers = new ArrayList<>(stream.subscribers);
+            stream.subscribers.clear();
+            stream.recent.clear();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Scheduled(fixedRateString = "${events.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        // Keeps idle connections open through proxies, notices dead ones, and forgets idle users
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        streams.forEach((userId, stream) -> {
+            List<Subscriber> ready = new ArrayList<>();
+            List<Subscriber> slow = new ArrayList<>();
+            synchronized (stream) {
+                if (stream.subscribers.isEmpty() && stream.lastActivity < cutoff) {
+                    stream.closed = true;
+                    streams.remove(userId, stream);
+                    return;
+                }
+                offer(stream, HEARTBEAT, ready, slow);
+            }
+            disconnect(slow);
+            ready.forEach(subscriber -> schedule(userId, subscriber));
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void replay(UserStream stream, Subscriber subscriber, Long afterId) {
+        if (afterId == null) {
+            subscriber.queue.offer(HEARTBEAT);
+            return;
+        }
+        List<Event> missed = new ArrayList<>();
+        for (Event event : stream.recent) {
+            if (event.id() > afterId) {
+                missed.add(event);
+            }
+        }
+        // Missed events are no longer all buffered (or would not fit): the client has to reload
+        if (afterId < stream.forgottenThrough || missed.size() >= queueCapacity) {
+            subscriber.queue.offer(new Event(lastId.get(), "reset", "{}"));
+            return;
+        }
+        subscriber.queue.offer(HEARTBEAT);
+        subscriber.queue.addAll(missed);
+    }
+
+    private static void offer(UserStream stream, Event event, List<Subscriber> ready, List<Subscriber> slow) {
+        // Never waits: a subscriber that has fallen a full queue behind is cut off
+        for (Subscriber subscriber : stream.subscribers) {
+            if (subscriber.queue.offer(event)) {
+                ready.add(subscriber);
+            } else {
+                slow.add(subscriber);
+            }
+        }
+        slow.forEach(stream.subscribers::remove);
+    }
+
+    private void disconnect(List<Subscriber> slow) {
+        for (Subscriber subscriber : slow) {
+            log.debug("Disconnecting slow event subscriber");
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void schedule(Long userId, Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(userId, subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            remove(userId, subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void drain(Long userId, Subscriber subscriber) {
+        try {
+            Event event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(event == HEARTBEAT
+                        ? SseEmitter.event().comment("")
+                        : SseEmitter.event().id(Long.toString(event.id())).name(event.type()).data(event.json()));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Connection gone or already completed; the container finishes the request
+            remove(userId, subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Events offered after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty()) {
+            schedule(userId, subscriber);
+        }
+    }
+
+    private void remove(Long userId, Subscriber subscriber) {
+        UserStream stream = streams.get(userId);
+        if (stream != null) {
+            synchronized (stream) {
+                stream.subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class UserExistenceCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final UserRepository userRepository;
+
+    // Access-ordered so the least recently used ids are dropped first
+    private final Map<Long, Boolean> knownUsers = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    public boolean exists(Long userId) {
+        // Only positive answers are cached, so new users are never hidden
+        if (knownUsers.get(userId) != null) {
+            return true;
+        }
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            knownUsers.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    public void evict(Long userId) {
+        knownUsers.remove(userId);
+    }
+}
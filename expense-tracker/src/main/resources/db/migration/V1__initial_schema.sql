@@ -0,0 +1,38 @@
+-- Schema as the first release's ddl-auto=update created it: amounts as doubles, categories as free-text
+-- names. Databases created that way are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and start from V2.
+
+create table users (
+    id bigint not null auto_increment,
+    name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table expense (
+    id bigint not null auto_increment,
+    user_id bigint,
+    description varchar(255),
+    category varchar(255),
+    amount double not null,
+    date date,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_expense_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table budget (
+    id bigint not null auto_increment,
+    user_id bigint,
+    category varchar(255),
+    amount double not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_budget_user foreign key (user_id) references users (id)
+) engine=InnoDB;
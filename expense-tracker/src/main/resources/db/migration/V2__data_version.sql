@@ -0,0 +1,2 @@
+-- Bumped on every expense or budget write; read endpoints build their ETags from it
+alter table users add column data_version bigint not null default 0;
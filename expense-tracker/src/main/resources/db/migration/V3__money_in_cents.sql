@@ -0,0 +1,12 @@
+-- Amounts as whole cents with a currency, instead of doubles
+alter table expense add column amount_cents bigint not null default 0;
+alter table expense add column currency varchar(3) default 'USD' not null;
+update expense set amount_cents = round(amount * 100);
+alter table expense alter column amount_cents drop default;
+alter table expense drop column amount;
+
+alter table budget add column amount_cents bigint not null default 0;
+alter table budget add column currency varchar(3) default 'USD' not null;
+update budget set amount_cents = round(amount * 100);
+alter table budget alter column amount_cents drop default;
+alter table budget drop column amount;
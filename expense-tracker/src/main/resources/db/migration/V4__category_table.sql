@@ -0,0 +1,47 @@
+-- Categories become per-user rows that expenses and budgets reference by id. Names are cleaned the way
+-- Category.clean does for new writes and looked up by the lower-cased clean name, so every spelling a user
+-- typed lands on one category.
+
+create table category (
+    id integer not null auto_increment,
+    user_id bigint not null,
+    name varchar(100) not null,
+    normalized_key varchar(100) not null,
+    primary key (id),
+    constraint uk_category_user_key unique (user_id, normalized_key),
+    constraint fk_category_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- Cleaned in place first: each run of the whitespace Category.clean collapses (space, tab, line feed,
+-- vertical tab, form feed, carriage return) becomes one space and the ends are trimmed. A name longer than
+-- the 100 characters a category holds, which the API now refuses, is cut to 100.
+update expense
+set category = trim(left(trim(regexp_replace(category, concat('[ ', cast(char(9) as char), cast(char(10) as char),
+        cast(char(11) as char), cast(char(12) as char), cast(char(13) as char), ']+'), ' ')), 100))
+where category is not null;
+update budget
+set category = trim(left(trim(regexp_replace(category, concat('[ ', cast(char(9) as char), cast(char(10) as char),
+        cast(char(11) as char), cast(char(12) as char), cast(char(13) as char), ']+'), ' ')), 100))
+where category is not null;
+
+-- One category per user and key, shared by expenses and budgets; named by the first spelling in sort order
+insert into category (user_id, name, normalized_key)
+select user_id, min(category), lower(category)
+from (
+    select user_id, category from expense where user_id is not null and category <> ''
+    union all
+    select user_id, category from budget where user_id is not null and category <> ''
+) names
+group by user_id, lower(category);
+
+alter table expense add column category_id integer;
+update expense e set category_id = (
+    select c.id from category c where c.user_id = e.user_id and c.normalized_key = lower(e.category));
+alter table expense add constraint fk_expense_category foreign key (category_id) references category (id);
+alter table expense drop column category;
+
+alter table budget add column category_id integer;
+update budget b set category_id = (
+    select c.id from category c where c.user_id = b.user_id and c.normalized_key = lower(b.category));
+alter table budget add constraint fk_budget_category foreign key (category_id) references category (id);
+alter table budget drop column category;
@@ -0,0 +1,33 @@
+-- Running spend per user, category and month. Created empty: the startup backfill
+-- (SpendingRollupJob) builds the rows for users who already have expenses.
+create table spending_rollup (
+    id bigint not null auto_increment,
+    user_id bigint,
+    category_id integer,
+    month_start date,
+    total_cents bigint not null,
+    expense_count bigint not null,
+    primary key (id),
+    constraint uk_rollup_user_category_id_month unique (user_id, category_id, month_start),
+    constraint fk_rollup_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- Budget thresholds crossed, for the long-poll endpoint
+create table budget_alert (
+    id bigint not null auto_increment,
+    user_id bigint,
+    budget_id bigint,
+    category varchar(255),
+    period_start date,
+    threshold integer not null,
+    spent_cents bigint not null,
+    amount_cents bigint not null,
+    created_at datetime(6),
+    primary key (id),
+    constraint fk_budget_alert_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- Long-poll reads after the last id seen
+create index idx_budget_alert_user_id on budget_alert (user_id, id);
+-- The once-per-period check before raising an alert
+create index idx_budget_alert_budget_period on budget_alert (budget_id, period_start, threshold);
@@ -0,0 +1,8 @@
+-- Keyset pages and date ranges; InnoDB appends the id, so (user_id, date) also orders by id
+create index idx_expense_user_date on expense (user_id, date);
+-- Per-category lists and totals, answered from the index alone
+create index idx_expense_user_category_date on expense (user_id, category_id, date, amount_cents);
+-- A user's budget for one category, looked up on every expense write to check alerts
+create index idx_budget_user_category on budget (user_id, category_id);
+-- Nightly cleanup of old alerts
+create index idx_budget_alert_created_at on budget_alert (created_at);
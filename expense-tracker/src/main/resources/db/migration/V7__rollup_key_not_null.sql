@@ -0,0 +1,17 @@
+-- Uncategorized and undated spending is keyed by sentinels instead of NULL: a unique key lets any number
+-- of rows share a NULL column, so the rollup upsert inserted a new row for them every time.
+-- Category 0 stands for no category, and 1900-01-01 for no date: ids start at 1, and no expense is that old.
+
+-- Rows split by the NULL keys are merged into one per bucket
+insert into spending_rollup (user_id, category_id, month_start, total_cents, expense_count)
+select user_id, coalesce(category_id, 0), coalesce(month_start, date '1900-01-01'),
+       sum(total_cents), sum(expense_count)
+from spending_rollup
+where category_id is null or month_start is null
+group by user_id, coalesce(category_id, 0), coalesce(month_start, date '1900-01-01');
+
+delete from spending_rollup where category_id is null or month_start is null;
+
+alter table spending_rollup modify column user_id bigint not null;
+alter table spending_rollup modify column category_id integer not null;
+alter table spending_rollup modify column month_start date not null;
@@ -0,0 +1,13 @@
+-- One alert per threshold per budget per month, enforced by the database: concurrent expenses crossing the
+-- same threshold could each pass the existence check and write their own alert.
+
+-- Duplicates already written keep the first alert raised
+delete from budget_alert
+where id not in (
+    select id from (
+        select min(id) as id from budget_alert group by budget_id, period_start, threshold
+    ) as first_alert
+);
+
+drop index idx_budget_alert_budget_period on budget_alert;
+create unique index uk_budget_alert_budget_period on budget_alert (budget_id, period_start, threshold);
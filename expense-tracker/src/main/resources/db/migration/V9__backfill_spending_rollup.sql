@@ -0,0 +1,16 @@
+-- Rollup rows for users whose expenses predate the rollup, built once here instead of by a scan of the
+-- whole expense table on every startup. Keys use the sentinels from V7 for no category and no date.
+insert into spending_rollup (user_id, category_id, month_start, total_cents, expense_count)
+select e.user_id,
+       coalesce(e.category_id, 0),
+       case when e.date is null then date '1900-01-01'
+            else cast(concat(year(e.date), '-', lpad(month(e.date), 2, '0'), '-01') as date) end,
+       sum(e.amount_cents),
+       count(*)
+from expense e
+where e.user_id is not null
+  and not exists (select 1 from spending_rollup r where r.user_id = e.user_id)
+group by e.user_id,
+         coalesce(e.category_id, 0),
+         case when e.date is null then date '1900-01-01'
+              else cast(concat(year(e.date), '-', lpad(month(e.date), 2, '0'), '-01') as date) end;
@@ -0,0 +1,15 @@
+package com.paki.expense_tracker;
+
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Empties every table after each test, so the next one starts from the migrated schema alone
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Sql(scripts = "/clear-database.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public @interface ClearDatabase {
+}
@@ -0,0 +1,122 @@
+package com.paki.expense_tracker;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Upgrades a database as the first release's ddl-auto=update left it: no migration history, doubles
+// for amounts and free-text category names
+class SchemaMigrationTests {
+
+    @Test
+    void legacyDatabaseIsBaselinedAndUpgraded() {
+        DriverManagerDataSource dataSource = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The V1 tables without a history table, as ddl-auto created them
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        jdbcTemplate.execute("drop table flyway_schema_history");
+
+        jdbcTemplate.update("insert into users (id, name, email, password) values (1, 'A', 'a@example.com', 'x')");
+        jdbcTemplate.update("insert into users (id, name, email, password) values (2, 'B', 'b@example.com', 'x')");
+        insertExpense(jdbcTemplate, 1, "Food", 12.34);
+        insertExpense(jdbcTemplate, 1, " food ", 0.1 + 0.2);
+        insertExpense(jdbcTemplate, 1, "Eating  Out", 20);
+        insertExpense(jdbcTemplate, 1, null, 5);
+        // Tabs and line breaks are whitespace too, as Category.clean treats them
+        insertExpense(jdbcTemplate, 1, "eating\tout\n", 1);
+        insertExpense(jdbcTemplate, 2, "FOOD", 1);
+        insertExpense(jdbcTemplate, 2, "x".repeat(120), 1);
+        jdbcTemplate.update("insert into budget (category, amount, user_id) values ('FOOD', 250.5, 1)");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        // Spellings of one name collapse into one category per user
+        assertThat(jdbcTemplate.queryForList(
+                "select normalized_key from category where user_id = 1 order by normalized_key", String.class))
+                .containsExactly("eating out", "food");
+        assertThat(jdbcTemplate.queryForObject(
+                "select name from category where user_id = 1 and normalized_key = 'eating out'", String.class))
+                .isEqualTo("Eating Out");
+        // Cut to the 100 characters a category name holds
+        assertThat(jdbcTemplate.queryForList(
+                "select normalized_key from category where user_id = 2 order by normalized_key", String.class))
+                .containsExactly("food", "x".repeat(100));
+
+        Integer food = jdbcTemplate.queryForObject(
+                "select id from category where user_id = 1 and normalized_key = 'food'", Integer.class);
+        assertThat(jdbcTemplate.queryForList(
+                "select amount_cents from expense where user_id = 1 and category_id = ? order by id", Long.class, food))
+                .containsExactly(1234L, 30L);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from expense where user_id = 1 and category_id is null", Integer.class))
+                .isEqualTo(1);
+        Map<String, Object> budget = jdbcTemplate.queryForMap("select category_id, amount_cents, currency from budget");
+        assertThat(budget).containsEntry("category_id", food).containsEntry("amount_cents", 25050L)
+                .containsEntry("currency", "USD");
+        assertThat(jdbcTemplate.queryForObject("select data_version from users where id = 1", Long.class)).isZero();
+        // The existing expenses are rolled up by the migration, not at startup
+        assertThat(jdbcTemplate.queryForList("select coalesce(c.normalized_key, '') as category, r.month_start, "
+                + "r.total_cents, r.expense_count from spending_rollup r left join category c on c.id = r.category_id "
+                + "where r.user_id = 1 order by category")).containsExactly(
+                Map.of("category", "", "month_start", Date.valueOf("2024-01-01"),
+                        "total_cents", 500L, "expense_count", 1L),
+                Map.of("category", "eating out", "month_start", Date.valueOf("2024-01-01"),
+                        "total_cents", 2100L, "expense_count", 2L),
+                Map.of("category", "food", "month_start", Date.valueOf("2024-01-01"),
+                        "total_cents", 1264L, "expense_count", 2L));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                        + "where table_name in ('expense', 'budget') and column_name in ('category', 'amount')",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void rollupRowsSplitByNullKeysAreMerged() {
+        DriverManagerDataSource dataSource = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("6").load().migrate();
+
+        jdbcTemplate.update("insert into users (id, name, email, password) values (1, 'A', 'a@example.com', 'x')");
+        // What the upsert left behind for uncategorized and undated expenses: a new row on every write
+        insertRollup(jdbcTemplate, null, "2024-01-01", 100);
+        insertRollup(jdbcTemplate, null, "2024-01-01", 200);
+        insertRollup(jdbcTemplate, 5, null, 50);
+        insertRollup(jdbcTemplate, 5, null, -50);
+        insertRollup(jdbcTemplate, 5, "2024-01-01", 10);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        assertThat(jdbcTemplate.queryForList("select category_id, month_start, total_cents, expense_count "
+                + "from spending_rollup order by category_id, month_start")).containsExactly(
+                Map.of("category_id", 0, "month_start", Date.valueOf("2024-01-01"),
+                        "total_cents", 300L, "expense_count", 2L),
+                Map.of("category_id", 5, "month_start", Date.valueOf("1900-01-01"),
+                        "total_cents", 0L, "expense_count", 2L),
+                Map.of("category_id", 5, "month_start", Date.valueOf("2024-01-01"),
+                        "total_cents", 10L, "expense_count", 1L));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                        + "where table_name = 'spending_rollup' and is_nullable = 'YES'", Integer.class)).isZero();
+    }
+
+    private static DriverManagerDataSource database() {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy_" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+    }
+
+    private static void insertRollup(JdbcTemplate jdbcTemplate, Integer categoryId, String monthStart, long cents) {
+        jdbcTemplate.update("insert into spending_rollup (user_id, category_id, month_start, total_cents, expense_count) "
+                + "values (1, ?, ?, ?, 1)", categoryId, monthStart, cents);
+    }
+
+    private static void insertExpense(JdbcTemplate jdbcTemplate, long userId, String category, double amount) {
+        jdbcTemplate.update("insert into expense (description, category, amount, date, user_id) "
+                + "values ('x', ?, ?, '2024-01-10', ?)", category, amount, userId);
+    }
+}
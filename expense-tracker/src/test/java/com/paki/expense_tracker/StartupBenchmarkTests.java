@@ -0,0 +1,121 @@
+package com.paki.expense_tracker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Wall-clock time from JVM launch to a refreshed context (Tomcat listening, Flyway and Hibernate done) for the
+// plain JVM, the AOT-processed context, and each with an AppCDS archive trained on the same mode.
+// Needs the extracted application: mvn -Pfast-startup -DskipTests -Dcds.training.skip package
+// then: mvn test -Pbenchmark -Dtest=StartupBenchmarkTests
+@Tag("benchmark")
+@Slf4j
+class StartupBenchmarkTests {
+
+    private static final int RUNS = 5;
+    private static final Path APPLICATION = Paths.get("target", "application");
+
+    @TempDir
+    Path archives;
+
+    @Test
+    void startupTimeByMode() throws Exception {
+        assumeTrue(Files.isDirectory(APPLICATION.resolve("lib")), "build with -Pfast-startup first");
+
+        Path cdsArchive = archives.resolve("jit.jsa");
+        Path aotCdsArchive = archives.resolve("aot.jsa");
+        // Training runs: the archive holds the classes loaded up to the end of refresh
+        launch(List.of("-XX:ArchiveClassesAtExit=" + cdsArchive));
+        launch(List.of("-XX:ArchiveClassesAtExit=" + aotCdsArchive, "-Dspring.aot.enabled=true"));
+
+        Result jit = measure(List.of());
+        Result aot = measure(List.of("-Dspring.aot.enabled=true"));
+        Result cds = measure(List.of("-XX:SharedArchiveFile=" + cdsArchive));
+        Result aotCds = measure(List.of("-XX:SharedArchiveFile=" + aotCdsArchive, "-Dspring.aot.enabled=true"));
+
+        log.info("JVM:       {}", jit);
+        log.info("AOT:       {}", aot);
+        log.info("CDS:       {}", cds);
+        log.info("AOT + CDS: {}", aotCds);
+        assertThat(aotCds.medianMillis()).isLessThan(jit.medianMillis());
+    }
+
+    private Result measure(List<String> jvmOptions) throws Exception {
+        // One unmeasured start to warm the file cache
+        launch(jvmOptions);
+        List<Long> millis = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            millis.add(launch(jvmOptions));
+        }
+        Collections.sort(millis);
+        return new Result(millis.get(RUNS / 2), millis.get(0), millis.get(RUNS - 1));
+    }
+
+    // Starts the application in its own JVM and returns milliseconds until it exits after refresh
+    private long launch(List<String> jvmOptions) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dspring.context.exit=onRefresh");
+        command.add("-cp");
+        // The extracted jar names lib/ in its manifest; H2 is appended, which a CDS archive allows
+        command.add(applicationJar() + File.pathSeparator + h2Jar());
+        command.add(ExpenseTrackerApplication.class.getName());
+        command.add("--spring.profiles.active=prod");
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        command.add("--spring.datasource.username=sa");
+        command.add("--spring.datasource.password=");
+        command.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        command.add("--server.port=0");
+        command.add("--logging.level.root=WARN");
+
+        Path log = archives.resolve("startup.log");
+        Process process = new ProcessBuilder(command)
+                .directory(APPLICATION.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        long start = System.nanoTime();
+        boolean exited = process.waitFor(3, TimeUnit.MINUTES);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!exited) {
+            process.destroyForcibly();
+        }
+        assertThat(exited && process.exitValue() == 0).as(Files.readString(log)).isTrue();
+        return elapsed;
+    }
+
+    private static String applicationJar() throws IOException {
+        try (Stream<Path> files = Files.list(APPLICATION)) {
+            return files.filter(file -> file.toString().endsWith(".jar"))
+                    .findFirst().orElseThrow().getFileName().toString();
+        }
+    }
+
+    private static String h2Jar() throws Exception {
+        return Paths.get(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    record Result(long medianMillis, long minMillis, long maxMillis) {
+        @Override
+        public String toString() {
+            return String.format("median %,d ms (min %,d, max %,d)", medianMillis, minMillis, maxMillis);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.paki.expense_tracker;
+
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Compares platform-thread and virtual-thread request handling under the same load.
+// Run with a Java 21 JDK: mvn test -Pbenchmark,virtual-threads
+@Tag("benchmark")
+@Slf4j
+class ThreadingBenchmarkTests {
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 40;
+    private static final long DATABASE_ROUND_TRIP_MILLIS = 5;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("platform threads: {}", platform);
+        log.info("virtual threads:  {}", virtual);
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ExpenseTrackerApplication.class, SimulatedRoundTrip.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=50",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:threading-" + virtualThreads + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=10")
+                .run()) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            Long userId = seed(context);
+
+            // Half the requests hit the database, half are served from the dashboard cache
+            HttpRequest page = HttpRequest.newBuilder(uri(port, "/api/expenses/" + userId + "/page?size=20")).build();
+            HttpRequest total = HttpRequest.newBuilder(uri(port, "/api/expenses/" + userId + "/total")).build();
+            load(page, total, 10);
+            return load(page, total, REQUESTS_PER_CLIENT);
+        }
+    }
+
+    private Long seed(ConfigurableApplicationContext context) {
+        User user = new User();
+        user.setName("Threads");
+        user.setEmail("threads@example.com");
+        user.setPassword("x");
+        user = context.getBean(UserRepository.class).save(user);
+
+        Category food = context.getBean(CategoryService.class).resolve(user.getId(), Category.named("Food"));
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Expense expense = new Expense();
+            expense.setDescription("Expense " + i);
+            expense.setCategory(food);
+            expense.setAmountCents(100 + i % 5000);
+            expense.setDate(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            expense.setUser(user);
+            expenses.add(expense);
+        }
+        context.getBean(ExpenseRepository.class).saveAll(expenses);
+        return user.getId();
+    }
+
+    private Result load(HttpRequest page, HttpRequest total, int requestsPerClient) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                List<Long> latencies = new ArrayList<>(requestsPerClient);
+                for (int i = 0; i < requestsPerClient; i++) {
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = client.send(i % 2 == 0 ? page : total,
+                            HttpResponse.BodyHandlers.discarding());
+                    latencies.add(response.statusCode() == 200 ? System.nanoTime() - sent : -1L);
+                }
+                return latencies;
+            }));
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        long errors = latencies.stream().filter(latency -> latency < 0).count();
+        latencies.removeIf(latency -> latency < 0);
+        Collections.sort(latencies);
+        return new Result(latencies.size() / (elapsed / 1e9), percentile(latencies, 0.50),
+                percentile(latencies, 0.99), errors);
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.ceil(sorted.size() * p) - 1) / 1e6;
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    record Result(double requestsPerSecond, double p50Millis, double p99Millis, long errors) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f req/s, p50 %.1f ms, p99 %.1f ms, %d errors",
+                    requestsPerSecond, p50Millis, p99Millis, errors);
+        }
+    }
+
+    // Holds each pooled connection for a network round trip, as MySQL would
+    @TestConfiguration
+    static class SimulatedRoundTrip {
+
+        @Bean
+        static BeanPostProcessor simulatedRoundTripDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            Connection connection = super.getConnection();
+                            try {
+                                Thread.sleep(DATABASE_ROUND_TRIP_MILLIS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return connection;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
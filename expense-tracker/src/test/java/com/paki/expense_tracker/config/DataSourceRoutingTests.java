@@ -0,0 +1,143 @@
+package com.paki.expense_tracker.config;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.dto.ExportStatus;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.ExportJobService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two in-memory H2 databases stand in for the primary and the replica; "replication" is a copy the test makes
+@SpringBootTest(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:expense_tracker_replica_${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.replica.hikari.maximum-pool-size=3",
+        "spring.datasource.hikari.maximum-pool-size=5",
+        "datasource.replica.sticky-window-ms=300"
+})
+@AutoConfigureMockMvc
+@ClearDatabase
+class DataSourceRoutingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replica;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Routing");
+        user.setEmail("routing@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void poolsAreSizedSeparately() {
+        assertThat(primary.getMaximumPoolSize()).isEqualTo(5);
+        assertThat(replica.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(replica.isReadOnly()).isTrue();
+    }
+
+    @Test
+    void readOnlyWorkUsesTheReplicaExceptRightAfterTheUsersOwnWrite() throws Exception {
+        addExpense("10.00");
+        replicate();
+
+        // Writes land on the primary only
+        addExpense("20.00");
+        assertThat(countExpenses(primary)).isEqualTo(2);
+        assertThat(countExpenses(replica)).isEqualTo(1);
+
+        // Within the window the writer reads its own write
+        assertThat(januaryCount()).isEqualTo(2);
+
+        // Then reads go back to the lagging replica
+        long deadline = System.currentTimeMillis() + 5000;
+        while (januaryCount() != 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(januaryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundExportsReadThePrimary() throws Exception {
+        addExpense("10.00");
+        replicate();
+        addExpense("20.00");
+        assertThat(countExpenses(replica)).isEqualTo(1);
+
+        // The job runs on a pool thread, outside the writer's request and its window
+        ExportStatus job = exportJobService.start(userId);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"DONE".equals(job.status()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = exportJobService.status(userId, job.id()).orElseThrow();
+        }
+        assertThat(job.status()).isEqualTo("DONE");
+        assertThat(job.rows()).isEqualTo(2);
+    }
+
+    private void addExpense(String amount) throws Exception {
+        mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"Food\",\"amount\":" + amount
+                                + ",\"date\":\"2024-01-05\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    // Expenses counted by the read-only trends query
+    private long januaryCount() throws Exception {
+        String body = mockMvc.perform(get("/api/expenses/{userId}/trends", userId)
+                        .param("to", "2024-01").param("months", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("months").get(0).get("count").asLong();
+    }
+
+    // Copies the primary's schema and rows over the replica
+    private void replicate() {
+        JdbcTemplate target = new JdbcTemplate(replica);
+        target.execute("DROP ALL OBJECTS");
+        for (String statement : new JdbcTemplate(primary).queryForList("SCRIPT", String.class)) {
+            target.execute(statement);
+        }
+    }
+
+    private long countExpenses(HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from expense", Long.class);
+    }
+}
@@ -0,0 +1,83 @@
+package com.paki.expense_tracker.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTests {
+
+    // Time only moves when the test says so
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBucketHolds() throws Exception {
+        int capacity = 1000;
+        int threads = 8;
+        int attemptsPerThread = 500;
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(capacity, 1, clock::get);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (limiter.tryAcquire("user-1") == 0) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+        start.countDown();
+        int granted = 0;
+        for (Future<Integer> result : results) {
+            granted += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 4000 attempts against 1000 tokens: no lost updates and no double grants
+        assertThat(granted).isEqualTo(capacity);
+        assertThat(limiter.tryAcquire("user-1")).isPositive();
+    }
+
+    @Test
+    void tokensRefillAtTheConfiguredRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 4, clock::get);
+
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        long wait = limiter.tryAcquire("user-1");
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+
+        clock.addAndGet(wait);
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        assertThat(limiter.tryAcquire("user-1")).isPositive();
+
+        // A long pause refills to capacity, not beyond
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        assertThat(limiter.tryAcquire("user-1")).isPositive();
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, clock::get);
+
+        assertThat(limiter.tryAcquire("user-1")).isZero();
+        assertThat(limiter.tryAcquire("user-1")).isPositive();
+        assertThat(limiter.tryAcquire("user-2")).isZero();
+    }
+}
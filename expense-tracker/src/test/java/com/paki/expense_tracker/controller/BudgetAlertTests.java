@@ -0,0 +1,163 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.BudgetAlert;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.BudgetAlertRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class BudgetAlertTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BudgetAlertRepository budgetAlertRepository;
+
+    private Long userId;
+    private final String today = LocalDate.now().toString();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setName("Alerts");
+        user.setEmail("alerts@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":100}"))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void crossingThresholdsWritesOneAlertEach() throws Exception {
+        addExpense("Food", "50.00", today);
+        assertThat(budgetAlertRepository.count()).isZero();
+
+        // 50 -> 85 crosses 80%, then 85 -> 105 crosses 100%
+        addExpense("Food", "35.00", today);
+        Long expenseId = addExpense("Food", "20.00", today);
+
+        Long first = budgetAlertRepository.findAll().get(0).getId();
+        MvcResult poll = mockMvc.perform(get("/api/budgets/{userId}/alerts", userId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(poll))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].threshold").value(80))
+                .andExpect(jsonPath("$[0].spent").value(85.0))
+                .andExpect(jsonPath("$[0].amount").value(100.0))
+                .andExpect(jsonPath("$[1].threshold").value(100))
+                .andExpect(jsonPath("$[1].spent").value(105.0));
+
+        // Dropping under and climbing back the same month does not repeat the alert
+        mockMvc.perform(put("/api/expenses/{userId}/{expenseId}", userId, expenseId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"Food\",\"amount\":1,\"date\":\"" + today + "\"}"))
+                .andExpect(status().isOk());
+        addExpense("Food", "30.00", today);
+        assertThat(budgetAlertRepository.count()).isEqualTo(2);
+
+        poll = mockMvc.perform(get("/api/budgets/{userId}/alerts", userId).param("after", first.toString()))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(poll))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].threshold").value(100));
+    }
+
+    @Test
+    void concurrentExpensesRaiseEachThresholdOnce() throws Exception {
+        // Ten 20.00 expenses at once against a 100 budget: 80% and 100% are each crossed by exactly one of them
+        int threads = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return addExpense("Food", "20.00", today);
+            }));
+        }
+        start.countDown();
+        for (Future<Long> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<BudgetAlert> alerts = budgetAlertRepository.findAll();
+        assertThat(alerts).extracting(BudgetAlert::getThreshold).containsExactlyInAnyOrder(80, 100);
+        // Additions to the bucket are serialized, so each alert saw the exact total that crossed it
+        assertThat(alerts).extracting(BudgetAlert::getSpentCents).containsExactlyInAnyOrder(8000L, 10000L);
+    }
+
+    @Test
+    void pastMonthsAndOtherCategoriesDoNotAlert() throws Exception {
+        addExpense("Food", "500.00", LocalDate.now().minusMonths(1).toString());
+        addExpense("Transport", "500.00", today);
+        assertThat(budgetAlertRepository.count()).isZero();
+    }
+
+    @Test
+    void waitingPollIsAnsweredWhenAnAlertCommits() throws Exception {
+        MvcResult poll = mockMvc.perform(get("/api/budgets/{userId}/alerts", userId).param("timeout", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Nothing to report yet, so the request stays open
+        assertThatThrownBy(() -> poll.getAsyncResult(100)).isInstanceOf(IllegalStateException.class);
+
+        addExpense("Food", "90.00", today);
+
+        mockMvc.perform(asyncDispatch(poll))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].category").value("Food"))
+                .andExpect(jsonPath("$[0].threshold").value(80));
+    }
+
+    private Long addExpense(String category, String amount, String date) throws Exception {
+        String body = mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"" + category + "\",\"amount\":" + amount
+                                + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class DashboardCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Cache");
+        user.setEmail("cache@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() throws Exception {
+        addExpense(10, "Food");
+        getJson("/api/expenses/{userId}/total");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        getJson("/api/expenses/{userId}/total");
+        getJson("/api/expenses/{userId}/total");
+        // The existence check is cached too, so a warm read never reaches the database
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void noStaleTotalAfterExpenseWrites() throws Exception {
+        addExpense(10, "Food");
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(10.0);
+        assertThat(getJson("/api/expenses/{userId}").size()).isEqualTo(1);
+
+        long id = addExpense(5, "Food");
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(15.0);
+        assertThat(getJson("/api/expenses/{userId}").size()).isEqualTo(2);
+        assertThat(getJson("/api/expenses/{userId}/category-stats").get("Food").get("count").asLong())
+                .isEqualTo(2);
+
+        mockMvc.perform(put("/api/expenses/{userId}/{expenseId}", userId, id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(expenseJson(7, "Food")))
+                .andExpect(status().isOk());
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(17.0);
+
+        mockMvc.perform(delete("/api/expenses/{userId}/{expenseId}", userId, id))
+                .andExpect(status().isNoContent());
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(10.0);
+
+        mockMvc.perform(delete("/api/expenses/{userId}", userId)).andExpect(status().isNoContent());
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isZero();
+    }
+
+    @Test
+    void noStaleBudgetSpendingAfterBudgetWrites() throws Exception {
+        addExpense(50, "Food");
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":100}"))
+                .andExpect(status().isCreated());
+        assertThat(getJson("/api/budgets/{userId}/with-spending").get(0).get("percentage").asDouble())
+                .isEqualTo(50.0);
+
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":200}"))
+                .andExpect(status().isOk());
+        assertThat(getJson("/api/budgets/{userId}/with-spending").get(0).get("percentage").asDouble())
+                .isEqualTo(25.0);
+
+        addExpense(50, "Food");
+        assertThat(getJson("/api/budgets/{userId}/with-spending").get(0).get("spent").asDouble())
+                .isEqualTo(100.0);
+    }
+
+    @Test
+    void cacheMetricsAreExposed() throws Exception {
+        getJson("/api/expenses/{userId}/total");
+        getJson("/api/expenses/{userId}/total");
+
+        JsonNode hits = objectMapper.readTree(mockMvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "cache:spendingTotals")
+                        .param("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(hits.get("measurements").get(0).get("value").asDouble()).isPositive();
+    }
+
+    private long addExpense(double amount, String category) throws Exception {
+        String body = mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(expenseJson(amount, category)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String body = mockMvc.perform(get(url, userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static String expenseJson(double amount, String category) {
+        return "{\"description\":\"Item\",\"category\":\"" + category + "\",\"amount\":" + amount
+                + ",\"date\":\"2024-01-10\"}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class ETagTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("ETag");
+        user.setEmail("etag@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void unchangedDataAnswers304WithoutTouchingTheDatabase() throws Exception {
+        String etag = etagOf("/api/expenses/{userId}");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/expenses/{userId}", userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void expenseWriteChangesTheETag() throws Exception {
+        String before = etagOf("/api/expenses/{userId}/total");
+
+        mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Lunch\",\"category\":\"Food\",\"amount\":12,\"date\":\"2024-01-10\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/expenses/{userId}/total", userId).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+        assertThat(etagOf("/api/expenses/{userId}/total")).isNotEqualTo(before);
+    }
+
+    @Test
+    void budgetWriteChangesTheETag() throws Exception {
+        String before = etagOf("/api/budgets/{userId}/with-spending");
+
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":100}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/budgets/{userId}/with-spending", userId).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/budgets/{userId}", userId).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url, userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
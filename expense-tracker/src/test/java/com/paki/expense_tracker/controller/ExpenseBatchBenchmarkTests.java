@@ -0,0 +1,84 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Compares importing a statement row by row against the batch endpoint.
+// Run with: mvn test -Pbenchmark
+@SpringBootTest
+@AutoConfigureMockMvc
+@Tag("benchmark")
+@ClearDatabase
+@Slf4j
+class ExpenseBatchBenchmarkTests {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Test
+    void batchImportOutpacesSingleInserts() throws Exception {
+        Long singleUser = createUser("single");
+        Long batchUser = createUser("batch");
+
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            mockMvc.perform(post("/api/expenses/{userId}", singleUser)
+                            .contentType(MediaType.APPLICATION_JSON).content(row(i)))
+                    .andExpect(status().isCreated());
+        }
+        long singleNanos = System.nanoTime() - singleStart;
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            ndjson.append(row(i)).append('\n');
+        }
+        long batchStart = System.nanoTime();
+        mockMvc.perform(post("/api/expenses/{userId}/batch", batchUser)
+                        .contentType(MediaType.APPLICATION_NDJSON).content(ndjson.toString()))
+                .andExpect(status().isCreated());
+        long batchNanos = System.nanoTime() - batchStart;
+
+        log.info("single inserts: {} rows/s", Math.round(ROWS / (singleNanos / 1e9)));
+        log.info("batch import:   {} rows/s", Math.round(ROWS / (batchNanos / 1e9)));
+        assertThat(expenseRepository.findByUserId(batchUser)).hasSize(ROWS);
+        assertThat(batchNanos).isLessThan(singleNanos);
+    }
+
+    private Long createUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "-batch-bench@example.com");
+        user.setPassword("x");
+        return userRepository.save(user).getId();
+    }
+
+    private static String row(int i) {
+        LocalDate date = LocalDate.of(2024, 1, 1).plusDays(i % 365);
+        return "{\"description\":\"row " + i + "\",\"category\":\"Food\",\"amount\":" + (i % 90 + 1)
+                + ",\"date\":\"" + date + "\"}";
+    }
+}
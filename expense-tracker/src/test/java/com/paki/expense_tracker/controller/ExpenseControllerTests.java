@@ -0,0 +1,294 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.CategoryRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class ExpenseControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Test");
+        user.setEmail("controller-test@example.com");
+        user.setPassword("x");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void pagesWalkTheWholeHistoryNewestFirst() throws Exception {
+        // Several expenses share a date so the id tiebreaker is exercised
+        for (int i = 0; i < 7; i++) {
+            save("Food", (i + 1) * 100L, LocalDate.of(2024, 1, 1 + i / 3));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/expenses/{userId}/page", user.getId()).param("size", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = readJson(mockMvc.perform(request).andExpect(status().isOk()).andReturn());
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asString();
+        } while (cursor != null);
+
+        List<Long> expected = expenseRepository.findByUserId(user.getId()).stream()
+                .sorted((a, b) -> a.getDate().equals(b.getDate())
+                        ? b.getId().compareTo(a.getId())
+                        : b.getDate().compareTo(a.getDate()))
+                .map(Expense::getId)
+                .toList();
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void invalidCursorIsRejected() throws Exception {
+        mockMvc.perform(get("/api/expenses/{userId}/page", user.getId()).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsOneJsonObjectPerLine() throws Exception {
+        save("Food", 1250, LocalDate.of(2024, 1, 1));
+        save("Bills", 4000, LocalDate.of(2024, 1, 2));
+
+        MvcResult started = mockMvc.perform(get("/api/expenses/{userId}/all", user.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("category").asString()).isEqualTo("Bills");
+        assertThat(objectMapper.readTree(lines[1]).get("category").asString()).isEqualTo("Food");
+        // Cents stay internal; JSON carries the decimal amount and its currency
+        JsonNode food = objectMapper.readTree(lines[1]);
+        assertThat(food.get("amount").asDouble()).isEqualTo(12.5);
+        assertThat(food.get("currency").asString()).isEqualTo("USD");
+        assertThat(food.has("amountCents")).isFalse();
+    }
+
+    @Test
+    void spellingsOfACategoryShareOneCategory() throws Exception {
+        for (String category : new String[] {"Eating Out", "eating out", "  EATING   out ", "eating\\t\\nout"}) {
+            mockMvc.perform(post("/api/expenses/{userId}", user.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"x\",\"category\":\"" + category
+                                    + "\",\"amount\":10,\"date\":\"2024-01-01\"}"))
+                    .andExpect(status().isCreated())
+                    // Shown as first entered
+                    .andExpect(jsonPath("$.category").value("Eating Out"));
+        }
+
+        assertThat(categoryRepository.findByUserId(user.getId())).hasSize(1);
+        mockMvc.perform(get("/api/expenses/{userId}/by-category/{category}", user.getId(), "EATING OUT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4));
+        mockMvc.perform(get("/api/expenses/{userId}/category-stats", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['Eating Out'].count").value(4));
+        mockMvc.perform(get("/api/expenses/{userId}/by-category/{category}", user.getId(), "Unknown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void amountsInAnotherCurrencyAreRejected() throws Exception {
+        // Totals add amounts up, so every amount has to be in the one currency
+        for (String currency : new String[] {"EURO", "xyz", "EUR"}) {
+            mockMvc.perform(post("/api/expenses/{userId}", user.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"x\",\"category\":\"Food\",\"amount\":10,"
+                                    + "\"currency\":\"" + currency + "\",\"date\":\"2024-01-01\"}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").exists());
+        }
+        mockMvc.perform(post("/api/budgets/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":100,\"currency\":\"GBP\"}"))
+                .andExpect(status().isBadRequest());
+        assertThat(expenseRepository.findByUserId(user.getId())).isEmpty();
+
+        mockMvc.perform(post("/api/expenses/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"Food\",\"amount\":10.005,"
+                                + "\"currency\":\"USD\",\"date\":\"2024-01-01\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.amount").value(10.01))
+                .andExpect(jsonPath("$.currency").value("USD"));
+    }
+
+    @Test
+    void overlongCategoryIsRejected() throws Exception {
+        // Counted after cleaning, against the 100 characters the column holds
+        String padded = "  " + "x".repeat(100) + "  ";
+        mockMvc.perform(post("/api/expenses/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"" + padded
+                                + "\",\"amount\":10,\"date\":\"2024-01-01\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/expenses/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"" + "x".repeat(101)
+                                + "\",\"amount\":10,\"date\":\"2024-01-01\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Category must be at most 100 characters."));
+        mockMvc.perform(post("/api/budgets/{userId}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"" + "x".repeat(101) + "\",\"amount\":100}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void totalsCanBeLimitedToADateRange() throws Exception {
+        save("Food", 1250, LocalDate.of(2024, 1, 1));
+        save("Bills", 4000, LocalDate.of(2024, 2, 1));
+        save("Food", 750, LocalDate.of(2024, 3, 1));
+
+        mockMvc.perform(get("/api/expenses/{userId}/total", user.getId())
+                        .param("startDate", "2024-01-01").param("endDate", "2024-02-29"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(52.5))
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.average").value(26.25))
+                .andExpect(jsonPath("$.totalCents").doesNotExist());
+        mockMvc.perform(get("/api/expenses/{userId}/category-stats", user.getId())
+                        .param("startDate", "2024-02-01").param("endDate", "2024-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.Food.total").value(7.5))
+                .andExpect(jsonPath("$.Bills.count").value(1));
+        mockMvc.perform(get("/api/expenses/{userId}/total", user.getId()).param("startDate", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchMatchesWordPrefixesWithinTheFilters() throws Exception {
+        save("Food", 1250, LocalDate.of(2024, 1, 1));
+        save("Bills", 4000, LocalDate.of(2024, 2, 1));
+        save("Food", 750, LocalDate.of(2024, 3, 1));
+
+        mockMvc.perform(get("/api/expenses/{userId}/search", user.getId())
+                        .param("q", "fo").param("category", " FOOD ").param("endDate", "2024-02-29"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Food 1250"));
+        mockMvc.perform(get("/api/expenses/{userId}/search", user.getId()).param("q", "food").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Food 750"));
+        mockMvc.perform(get("/api/expenses/{userId}/search", user.getId())
+                        .param("q", "food").param("category", "Travel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/expenses/{userId}/search", user.getId()).param("q", " -- "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search query is required."));
+    }
+
+    @Test
+    void batchAcceptsJsonArray() throws Exception {
+        String body = "[{\"description\":\"Rent\",\"category\":\"Bills\",\"amount\":900,\"date\":\"2024-01-01\"},"
+                + "{\"description\":\"Bus\",\"category\":\"Transport\",\"amount\":2.5,\"date\":\"2024-01-02\"}]";
+
+        JsonNode result = readJson(mockMvc.perform(post("/api/expenses/{userId}/batch", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()).andReturn());
+
+        assertThat(result.get("inserted").asInt()).isEqualTo(2);
+        assertThat(expenseRepository.findByUserId(user.getId()))
+                .extracting(expense -> expense.getCategory().getName()).containsExactlyInAnyOrder("Bills", "Transport");
+    }
+
+    @Test
+    void batchAcceptsNdjsonAndReportsInvalidRows() throws Exception {
+        String body = "{\"description\":\"Rent\",\"category\":\"Bills\",\"amount\":900,\"date\":\"2024-01-01\"}\n"
+                + "{\"description\":\"\",\"category\":\"Bills\",\"amount\":1,\"date\":\"2024-01-01\"}\n"
+                + "{\"description\":\"Refund\",\"category\":\"Bills\",\"amount\":-5,\"date\":\"2024-01-01\"}\n";
+
+        JsonNode result = readJson(mockMvc.perform(post("/api/expenses/{userId}/batch", user.getId())
+                        .contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isCreated()).andReturn());
+
+        assertThat(result.get("inserted").asInt()).isEqualTo(1);
+        assertThat(result.get("rejected").asInt()).isEqualTo(2);
+        assertThat(result.get("errors").get(0).get("index").asInt()).isEqualTo(1);
+        assertThat(result.get("errors").get(1).get("index").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void batchRejectsMalformedInput() throws Exception {
+        mockMvc.perform(post("/api/expenses/{userId}/batch", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("[{\"description\": oops}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode readJson(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private void save(String category, long amountCents, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setDescription(category + " " + amountCents);
+        expense.setCategory(categoryService.resolve(user.getId(), Category.named(category)));
+        expense.setAmountCents(amountCents);
+        expense.setDate(date);
+        expense.setUser(user);
+        expenseRepository.save(expense);
+    }
+}
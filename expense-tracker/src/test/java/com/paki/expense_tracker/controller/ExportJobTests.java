@@ -0,0 +1,166 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.ExportJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Jobs expire as soon as they finish, but only when the test sweeps; the scheduled sweep is pushed out
+@SpringBootTest(properties = {
+        "exports.directory=target/export-tests",
+        "exports.ttl-ms=0",
+        "exports.cleanup-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ClearDatabase
+class ExportJobTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Export");
+        user.setEmail("export@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void exportIsWrittenAsGzippedCsvAndDownloaded() throws Exception {
+        addExpense("Rent, January", "Bills", "900", "2024-01-01");
+        addExpense("=HYPERLINK(\\\"x\\\")", "Food", "12.5", "2024-01-02");
+
+        JsonNode done = awaitDone(start());
+        assertThat(done.get("rows").asLong()).isEqualTo(2);
+        assertThat(done.get("totalRows").asLong()).isEqualTo(2);
+        assertThat(done.get("progress").asDouble()).isEqualTo(1.0);
+
+        MvcResult started = mockMvc.perform(get("/api/expenses/{userId}/exports/{id}/file",
+                        userId, done.get("id").asString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String[] lines;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+        }
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id,date,description,category,amount,currency,created_at,updated_at");
+        // Newest first; formulas are defused and quotes doubled
+        assertThat(lines[1]).contains(",2024-01-02,\"'=HYPERLINK(\"\"x\"\")\",Food,12.50,USD,");
+        assertThat(lines[2]).contains(",2024-01-01,\"Rent, January\",Bills,900.00,USD,");
+    }
+
+    @Test
+    void repeatedRequestsShareAJobUntilTheDataChanges() throws Exception {
+        addExpense("Lunch", "Food", "10", "2024-01-01");
+        String first = awaitDone(start()).get("id").asString();
+
+        assertThat(start().get("id").asString()).isEqualTo(first);
+
+        addExpense("Dinner", "Food", "20", "2024-01-02");
+        JsonNode second = awaitDone(start());
+        assertThat(second.get("id").asString()).isNotEqualTo(first);
+        assertThat(second.get("rows").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    void jobsAreOnlyVisibleToTheirUserAndExpire() throws Exception {
+        String id = awaitDone(start()).get("id").asString();
+
+        mockMvc.perform(get("/api/expenses/{userId}/exports/{id}", userId + 1, id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/expenses/{userId}/exports/{id}/file", userId + 1, id))
+                .andExpect(status().isNotFound());
+
+        exportJobService.removeExpired();
+        mockMvc.perform(get("/api/expenses/{userId}/exports/{id}", userId, id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deletingTheUserDropsTheirJobsAndFiles() throws Exception {
+        addExpense("Lunch", "Food", "10", "2024-01-01");
+        String id = awaitDone(start()).get("id").asString();
+        Path file = Paths.get("target/export-tests", id + ".csv.gz");
+        assertThat(file).exists();
+
+        mockMvc.perform(delete("/api/users/{userId}", userId)).andExpect(status().isNoContent());
+
+        assertThat(file).doesNotExist();
+        mockMvc.perform(get("/api/expenses/{userId}/exports/{id}", userId, id))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode start() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/expenses/{userId}/exports", userId))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode awaitDone(JsonNode job) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        JsonNode status = job;
+        while (!"DONE".equals(status.get("status").asString()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            MvcResult result = mockMvc.perform(get("/api/expenses/{userId}/exports/{id}",
+                            userId, job.get("id").asString()))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            status = objectMapper.readTree(result.getResponse().getContentAsString());
+        }
+        assertThat(status.get("status").asString()).isEqualTo("DONE");
+        return status;
+    }
+
+    private void addExpense(String description, String category, String amount, String date) throws Exception {
+        mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"" + description + "\",\"category\":\"" + category
+                                + "\",\"amount\":" + amount + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,107 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Measures read latency on a small Tomcat pool while a burst of logins is hashing.
+// Run with: mvn test -Pbenchmark
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=8",
+        "security.bcrypt.strength=10"
+})
+@Tag("benchmark")
+@ClearDatabase
+@Slf4j
+class LoginBurstBenchmarkTests {
+
+    private static final int READS = 300;
+    private static final int LOGINS = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void readLatencyHoldsDuringLoginBurst() throws Exception {
+        User user = new User();
+        user.setName("Burst");
+        user.setEmail("burst@example.com");
+        user.setPassword(passwordEncoder.encode("secret"));
+        Long userId = userRepository.save(user).getId();
+
+        HttpRequest read = HttpRequest.newBuilder(uri("/api/expenses/" + userId + "/total")).build();
+        HttpRequest login = HttpRequest.newBuilder(uri("/api/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"burst@example.com\",\"password\":\"secret\"}"))
+                .build();
+
+        measureReads(read, 50);
+        long idleP99 = measureReads(read, READS);
+
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        for (int i = 0; i < LOGINS; i++) {
+            clients.submit(() -> {
+                int status = client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode();
+                statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                return null;
+            });
+        }
+        long burstP99 = measureReads(read, READS);
+        clients.shutdown();
+        assertThat(clients.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+        log.info("read p99 idle: {} us, during login burst: {} us", idleP99 / 1_000, burstP99 / 1_000);
+        log.info("login responses: {}", statuses);
+        assertThat(statuses.keySet()).isSubsetOf(200, 429);
+        // Hashing competes for CPU, but reads must not queue behind logins for request threads
+        assertThat(burstP99).isLessThan(Math.max(idleP99 * 10, TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    private long measureReads(HttpRequest read, int count) throws Exception {
+        List<Long> latencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(read, HttpResponse.BodyHandlers.discarding());
+            latencies.add(System.nanoTime() - start);
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+        Collections.sort(latencies);
+        return latencies.get((int) Math.ceil(count * 0.99) - 1);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
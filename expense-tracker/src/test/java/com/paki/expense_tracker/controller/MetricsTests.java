@@ -0,0 +1,106 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.micrometer.metrics.test.autoconfigure.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ClearDatabase
+class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setName("Metrics");
+        user.setEmail("metrics@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/expenses/{userId}", userId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"Lunch\",\"category\":\"Food\",\"amount\":12,\"date\":\"2024-01-10\"}"))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Test
+    void hibernateWorkIsRecordedPerControllerMethod() throws Exception {
+        DistributionSummary entities = entitiesLoadedBy("ExpenseController#getExpensesByCategory");
+        long callsBefore = entities == null ? 0 : entities.count();
+        double loadedBefore = entities == null ? 0 : entities.totalAmount();
+
+        mockMvc.perform(get("/api/expenses/{userId}/by-category/{category}", userId, "Food"))
+                .andExpect(status().isOk());
+
+        entities = entitiesLoadedBy("ExpenseController#getExpensesByCategory");
+        assertThat(entities.count()).isEqualTo(callsBefore + 1);
+        // The three expenses come back as response records, so no entities are loaded at all
+        assertThat(entities.totalAmount() - loadedBefore).isZero();
+        assertThat(meterRegistry.get("hibernate.request.statements")
+                .tag("handler", "ExpenseController#getExpensesByCategory").summary().max()).isPositive();
+        assertThat(meterRegistry.get("hibernate.request.executions")
+                .tag("handler", "ExpenseController#getExpensesByCategory").summary().max()).isPositive();
+
+        // An update loads the expense it changes
+        Long expenseId = expenseRepository.findAll().get(0).getId();
+        mockMvc.perform(put("/api/expenses/{userId}/{expenseId}", userId, expenseId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Dinner\",\"category\":\"Food\",\"amount\":20,\"date\":\"2024-01-11\"}"))
+                .andExpect(status().isOk());
+        assertThat(entitiesLoadedBy("ExpenseController#updateExpense").max()).isPositive();
+    }
+
+    @Test
+    void prometheusScrapeExposesRequestTimersPoolGaugesAndHibernateStatistics() throws Exception {
+        mockMvc.perform(get("/api/expenses/{userId}/total", userId)).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("handler=\"ExpenseController#getTotalSpending\"")
+                .contains("hikaricp_connections_active")
+                .contains("hibernate_request_statements")
+                .contains("hibernate_statements_total");
+    }
+
+    private DistributionSummary entitiesLoadedBy(String handler) {
+        return meterRegistry.find("hibernate.request.entities").tag("handler", handler).summary();
+    }
+}
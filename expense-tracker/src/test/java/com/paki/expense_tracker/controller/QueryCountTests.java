@@ -0,0 +1,199 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.config.CacheConfig;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.BudgetRepository;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.CategoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every endpoint should touch the database only for the statements it really needs
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    private Statistics statistics;
+    private Long userId;
+    private Long expenseId;
+    private Long budgetId;
+    private Category food;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setName("Counter");
+        user.setEmail("query-count@example.com");
+        user.setPassword("x");
+        user = userRepository.save(user);
+        userId = user.getId();
+
+        food = categoryService.resolve(userId, Category.named("Food"));
+
+        Expense expense = new Expense();
+        expense.setDescription("Lunch");
+        expense.setCategory(food);
+        expense.setAmountCents(1250);
+        expense.setDate(LocalDate.of(2024, 1, 10));
+        expense.setUser(user);
+        expenseId = expenseRepository.save(expense).getId();
+
+        Budget budget = new Budget();
+        budget.setCategory(food);
+        budget.setAmountCents(20000);
+        budget.setUser(user);
+        budgetId = budgetRepository.save(budget).getId();
+
+        // Warm the data-version and user-existence caches, as any earlier requests would
+        mockMvc.perform(get("/api/expenses/{userId}/total", userId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/expenses/{userId}/rollup/verify", userId)).andExpect(status().isOk());
+    }
+
+    @Test
+    void expenseReadsIssueOneStatement() throws Exception {
+        assertStatements(1, get("/api/expenses/{userId}", userId));
+        assertStatements(1, get("/api/expenses/{userId}/page", userId));
+        assertStatements(1, get("/api/expenses/{userId}/by-category/{category}", userId, "food"));
+        assertStatements(1, get("/api/expenses/{userId}/date-range", userId)
+                .param("startDate", "2024-01-01").param("endDate", "2024-01-31"));
+        assertStatements(1, get("/api/expenses/{userId}/total", userId));
+        assertStatements(1, get("/api/expenses/{userId}/category-stats", userId));
+    }
+
+    @Test
+    void exportIssuesOneStatement() throws Exception {
+        statistics.clear();
+        MvcResult started = mockMvc.perform(get("/api/expenses/{userId}/all", userId)).andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expenseWritesFoldOwnershipIntoTheLookup() throws Exception {
+        String body = "{\"description\":\"Bus\",\"category\":\"Transport\",\"amount\":2.5,\"date\":\"2024-01-11\"}";
+        // Insert, the rollup upsert and the data-version bump; the user is attached by reference
+        // and a known category comes from the cache
+        assertStatements(3, post("/api/expenses/{userId}", userId)
+                .contentType(MediaType.APPLICATION_JSON).content(body.replace("Transport", "Food")));
+        // A category's first use adds its lookup, insert and read-back
+        assertStatements(6, post("/api/expenses/{userId}", userId)
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+        // Owned select, the update, moving the amount between two rollup buckets, the version bump
+        assertStatements(5, put("/api/expenses/{userId}/{expenseId}", userId, expenseId)
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+        // Owned select, the delete, the rollup decrement and the version bump
+        assertStatements(4, delete("/api/expenses/{userId}/{expenseId}", userId, expenseId));
+    }
+
+    @Test
+    void budgetEndpointsIssueOnlyTheStatementsTheyNeed() throws Exception {
+        assertStatements(1, get("/api/budgets/{userId}", userId));
+        // Budgets plus the grouped expense totals
+        assertStatements(2, get("/api/budgets/{userId}/with-spending", userId));
+        // Each write also bumps the user's data version
+        assertStatements(3, put("/api/budgets/{userId}/{budgetId}", userId, budgetId)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":250}"));
+        assertStatements(2, delete("/api/budgets/{userId}/{budgetId}", userId, budgetId));
+    }
+
+    @Test
+    void foreignExpenseIsForbiddenWithoutLoadingTheOwner() throws Exception {
+        User other = new User();
+        other.setName("Other");
+        other.setEmail("query-count-other@example.com");
+        other.setPassword("x");
+        Long otherId = userRepository.save(other).getId();
+
+        statistics.clear();
+        mockMvc.perform(delete("/api/expenses/{userId}/{expenseId}", otherId, expenseId))
+                .andExpect(status().isForbidden());
+        // Failed owned lookup, then the existence check that tells 403 from 404
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkDeletesDoNotDependOnHistorySize() throws Exception {
+        addExpenses(200);
+        // Expenses, their rollup rows, then the version bump
+        assertStatements(3, delete("/api/expenses/{userId}", userId));
+        assertThat(expenseRepository.findByUserId(userId)).isEmpty();
+        assertThat(budgetRepository.findByUserId(userId)).hasSize(1);
+
+        addExpenses(200);
+        // Expenses, budgets, rollup rows, alerts, categories, then the user row
+        assertStatements(6, delete("/api/users/{userId}", userId));
+        assertThat(userRepository.existsById(userId)).isFalse();
+        assertThat(expenseRepository.findByUserId(userId)).isEmpty();
+        assertThat(budgetRepository.findByUserId(userId)).isEmpty();
+    }
+
+    private void addExpenses(int count) {
+        User user = userRepository.getReferenceById(userId);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense();
+            expense.setDescription("Bulk " + i);
+            expense.setCategory(food);
+            expense.setAmountCents(100);
+            expense.setDate(LocalDate.of(2024, 2, 1));
+            expense.setUser(user);
+            expenseRepository.save(expense);
+        }
+    }
+
+    private void assertStatements(long expected, RequestBuilder request) throws Exception {
+        // Measure the database path, not the dashboard cache; the warm data version stands in
+        // for the user-existence check, and category lookups stay warm, as they would on any request after the first
+        cacheManager.getCacheNames().stream()
+                .filter(name -> !name.equals(CacheConfig.DATA_VERSIONS) && !name.equals(CacheConfig.CATEGORIES))
+                .forEach(name -> cacheManager.getCache(name).clear());
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,70 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "rate-limit.enabled=true",
+        "rate-limit.export.capacity=2",
+        "rate-limit.export.per-second=0.1"
+})
+@AutoConfigureMockMvc
+@ClearDatabase
+class RateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Limited");
+        user.setEmail("limited@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void exportsBeyondTheBurstAreRejectedWithRetryAfter() throws Exception {
+        mockMvc.perform(get("/api/expenses/{userId}/all", userId)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/expenses/{userId}/all", userId)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/expenses/{userId}/all", userId))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"))
+                .andExpect(jsonPath("$.message", containsString("Too many requests")));
+
+        // Finished export files draw on the same bucket
+        mockMvc.perform(get("/api/expenses/{userId}/exports/{id}/file", userId, "unknown"))
+                .andExpect(status().isTooManyRequests());
+
+        // Other endpoint classes have their own buckets
+        mockMvc.perform(get("/api/expenses/{userId}/total", userId)).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("ratelimit.requests")
+                .tags("class", "export", "outcome", "rejected").counter().count()).isEqualTo(2);
+    }
+}
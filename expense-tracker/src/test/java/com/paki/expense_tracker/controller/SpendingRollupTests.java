@@ -0,0 +1,217 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.SpendingRollup;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.SpendingRollupRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class SpendingRollupTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SpendingRollupRepository spendingRollupRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Rollup");
+        user.setEmail("rollup@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void writesKeepTheRollupInStep() throws Exception {
+        long lunch = addExpense("Lunch", "Food", 12.5, "2024-01-10");
+        addExpense("Dinner", "Food", 30, "2024-01-20");
+        long bus = addExpense("Bus", "Transport", 2.5, "2024-02-01");
+
+        // Move lunch to another category and month, change the bus fare, delete nothing yet
+        updateExpense(lunch, "Lunch", "Work", 14, "2024-03-05");
+        updateExpense(bus, "Bus", "Transport", 3, "2024-02-01");
+
+        JsonNode total = getJson("/api/expenses/{userId}/total");
+        assertThat(total.get("total").asDouble()).isEqualTo(47.0);
+        assertThat(total.get("count").asLong()).isEqualTo(3);
+
+        JsonNode stats = getJson("/api/expenses/{userId}/category-stats");
+        assertThat(stats.get("Food").get("total").asDouble()).isEqualTo(30.0);
+        assertThat(stats.get("Work").get("count").asLong()).isEqualTo(1);
+        assertThat(stats.get("Transport").get("total").asDouble()).isEqualTo(3.0);
+
+        mockMvc.perform(delete("/api/expenses/{userId}/{expenseId}", userId, lunch))
+                .andExpect(status().isNoContent());
+        stats = getJson("/api/expenses/{userId}/category-stats");
+        // A category whose last expense is gone disappears from the stats
+        assertThat(stats.has("Work")).isFalse();
+
+        assertThat(getJson("/api/expenses/{userId}/rollup/verify")).isEmpty();
+    }
+
+    @Test
+    void budgetsReadSpendingFromTheRollup() throws Exception {
+        addExpense("Lunch", "Food", 40, "2024-01-10");
+        addExpense("Dinner", "Food", 60, "2024-02-10");
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":200}"))
+                .andExpect(status().isCreated());
+
+        JsonNode budget = getJson("/api/budgets/{userId}/with-spending").get(0);
+        assertThat(budget.get("spent").asDouble()).isEqualTo(100.0);
+        assertThat(budget.get("percentage").asDouble()).isEqualTo(50.0);
+    }
+
+    @Test
+    void batchImportUpdatesTheRollup() throws Exception {
+        String body = "{\"description\":\"A\",\"category\":\"Food\",\"amount\":1.5,\"date\":\"2024-01-01\"}\n"
+                + "{\"description\":\"B\",\"category\":\"Food\",\"amount\":2.5,\"date\":\"2024-01-31\"}\n"
+                + "{\"description\":\"C\",\"category\":\"Bills\",\"amount\":50,\"date\":\"2024-02-01\"}\n";
+        mockMvc.perform(post("/api/expenses/{userId}/batch", userId)
+                        .contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isCreated());
+
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(54.0);
+        assertThat(getJson("/api/expenses/{userId}/rollup/verify")).isEmpty();
+    }
+
+    @Test
+    void rebuildRepairsDrift() throws Exception {
+        addExpense("Lunch", "Food", 12.5, "2024-01-10");
+        spendingRollupRepository.deleteAll();
+
+        JsonNode drift = getJson("/api/expenses/{userId}/rollup/verify");
+        assertThat(drift).hasSize(1);
+        assertThat(drift.get(0).get("expectedCents").asLong()).isEqualTo(1250);
+        assertThat(drift.get(0).get("actualCents").asLong()).isZero();
+
+        mockMvc.perform(post("/api/expenses/{userId}/rollup/rebuild", userId))
+                .andExpect(status().isNoContent());
+        assertThat(getJson("/api/expenses/{userId}/rollup/verify")).isEmpty();
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(12.5);
+    }
+
+    @Test
+    void rebuildOnlyTouchesDriftedBuckets() throws Exception {
+        addExpense("Lunch", "Food", 12.5, "2024-01-10");
+        addExpense("Rent", "Bills", 900, "2024-01-01");
+        SpendingRollup bills = spendingRollupRepository.findByUserId(userId).stream()
+                .filter(rollup -> rollup.getTotalCents() == 90000).findFirst().orElseThrow();
+        SpendingRollup food = spendingRollupRepository.findByUserId(userId).stream()
+                .filter(rollup -> rollup.getTotalCents() == 1250).findFirst().orElseThrow();
+        food.setTotalCents(999);
+        spendingRollupRepository.save(food);
+
+        mockMvc.perform(post("/api/expenses/{userId}/rollup/rebuild", userId))
+                .andExpect(status().isNoContent());
+
+        // Corrected in place by a delta; rows are never deleted, so a write landing meanwhile cannot be lost
+        assertThat(spendingRollupRepository.findById(food.getId()).orElseThrow().getTotalCents()).isEqualTo(1250);
+        assertThat(spendingRollupRepository.findById(bills.getId()).orElseThrow().getTotalCents()).isEqualTo(90000);
+        assertThat(getJson("/api/expenses/{userId}/rollup/verify")).isEmpty();
+    }
+
+    @Test
+    void uncategorizedUndatedSpendingSharesOneRow() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/expenses/{userId}", userId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"Misc\",\"amount\":2}"))
+                    .andExpect(status().isCreated());
+        }
+
+        // Sentinel keys rather than NULLs, so the upsert finds the row again
+        assertThat(spendingRollupRepository.findByUserId(userId)).singleElement().satisfies(rollup -> {
+            assertThat(rollup.getCategoryId()).isEqualTo(SpendingRollup.NO_CATEGORY);
+            assertThat(rollup.getMonthStart()).isEqualTo(SpendingRollup.NO_MONTH);
+            assertThat(rollup.getExpenseCount()).isEqualTo(3);
+        });
+        assertThat(getJson("/api/expenses/{userId}/total").get("total").asDouble()).isEqualTo(6.0);
+        assertThat(getJson("/api/expenses/{userId}/rollup/verify")).isEmpty();
+    }
+
+    @Test
+    void centAmountsAddUpExactly() throws Exception {
+        // Ten dimes are a dollar in cents, but 0.9999999999999999 as summed doubles
+        for (int i = 0; i < 10; i++) {
+            addExpense("Gum", "Food", 0.1, "2024-01-10");
+        }
+
+        String body = mockMvc.perform(get("/api/expenses/{userId}/total", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body).contains("\"total\":1.00");
+        assertThat(getJson("/api/expenses/{userId}/category-stats").get("Food").get("total").asDouble())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void zeroBudgetReportsAFinitePercentage() throws Exception {
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":0}"))
+                .andExpect(status().isCreated());
+        assertThat(getJson("/api/budgets/{userId}/with-spending").get(0).get("percentage").asDouble()).isZero();
+
+        addExpense("Lunch", "Food", 12.5, "2024-01-10");
+        JsonNode budget = getJson("/api/budgets/{userId}/with-spending").get(0);
+        assertThat(budget.get("percentage").asDouble()).isEqualTo(100.0);
+        assertThat(budget.get("remaining").asDouble()).isEqualTo(-12.5);
+    }
+
+    private long addExpense(String description, String category, double amount, String date) throws Exception {
+        String body = mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(expenseJson(description, category, amount, date)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private void updateExpense(long expenseId, String description, String category, double amount, String date)
+            throws Exception {
+        mockMvc.perform(put("/api/expenses/{userId}/{expenseId}", userId, expenseId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(expenseJson(description, category, amount, date)))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String body = mockMvc.perform(get(url, userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static String expenseJson(String description, String category, double amount, String date) {
+        return "{\"description\":\"" + description + "\",\"category\":\"" + category + "\",\"amount\":" + amount
+                + ",\"date\":\"" + date + "\"}";
+    }
+}
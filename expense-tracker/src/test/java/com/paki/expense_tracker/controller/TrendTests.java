@@ -0,0 +1,111 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ClearDatabase
+class TrendTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Trends");
+        user.setEmail("trends@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void monthlyAndCategorySeriesWithMovingAverage() throws Exception {
+        addExpense("Food", "10.00", "2024-01-05");
+        addExpense("Food", "20.00", "2024-03-10");
+        addExpense("Transport", "40.50", "2024-03-11");
+        // Outside the window
+        addExpense("Food", "99.00", "2023-12-31");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/expenses/{userId}/trends", userId)
+                        .param("to", "2024-04").param("months", "4").param("window", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value("2024-01"))
+                .andExpect(jsonPath("$.to").value("2024-04"))
+                .andExpect(jsonPath("$.months", hasSize(4)))
+                .andExpect(jsonPath("$.months[0].total").value(10.0))
+                .andExpect(jsonPath("$.months[1].total").value(0.0))
+                .andExpect(jsonPath("$.months[1].movingAverage").value(5.0))
+                .andExpect(jsonPath("$.months[2].total").value(60.5))
+                .andExpect(jsonPath("$.months[2].count").value(2))
+                .andExpect(jsonPath("$.months[2].movingAverage").value(30.25))
+                .andExpect(jsonPath("$.months[3].movingAverage").value(30.25))
+                .andExpect(jsonPath("$.categories[0].category").value("Transport"))
+                .andExpect(jsonPath("$.categories[1].category").value("Food"))
+                .andExpect(jsonPath("$.categories[1].total").value(30.0))
+                .andExpect(jsonPath("$.categories[1].totals[2]").value(20.0))
+                .andExpect(jsonPath("$.projections", hasSize(0)));
+        // A past window needs only the grouped query, plus the data-version lookup the writes above evicted
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void budgetsAreProjectedToTheEndOfTheCurrentMonth() throws Exception {
+        LocalDate today = LocalDate.now();
+        addExpense("Food", "30.00", today.toString());
+        mockMvc.perform(post("/api/budgets/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Food\",\"amount\":100}"))
+                .andExpect(status().isCreated());
+
+        double projected = Math.round(3000.0 * YearMonth.from(today).lengthOfMonth() / today.getDayOfMonth()) / 100.0;
+        mockMvc.perform(get("/api/expenses/{userId}/trends", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months", hasSize(12)))
+                .andExpect(jsonPath("$.months[11].total").value(30.0))
+                .andExpect(jsonPath("$.projections[0].category").value("Food"))
+                .andExpect(jsonPath("$.projections[0].spent").value(30.0))
+                .andExpect(jsonPath("$.projections[0].projected").value(projected))
+                .andExpect(jsonPath("$.projections[0].overBudget").value(projected > 100));
+    }
+
+    private void addExpense(String category, String amount, String date) throws Exception {
+        mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"x\",\"category\":\"" + category + "\",\"amount\":" + amount
+                                + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isCreated());
+    }
+}
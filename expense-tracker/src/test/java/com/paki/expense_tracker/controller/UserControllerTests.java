@@ -0,0 +1,149 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One hashing thread and a one-slot queue, so the back-pressure path is easy to reach
+@SpringBootTest(properties = {"security.hashing.threads=1", "security.hashing.queue-capacity=1"})
+@AutoConfigureMockMvc
+@ClearDatabase
+class UserControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void registeredUserCanLogIn() throws Exception {
+        perform(register("Alice", "alice@example.com", "secret"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.email").value("alice@example.com"));
+
+        assertThat(userRepository.findByEmail("alice@example.com").orElseThrow().getPassword())
+                .startsWith("$2a$04$");
+        perform(login("alice@example.com", "secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Alice"));
+    }
+
+    @Test
+    void emailTakenWhileHashingAnswers409() throws Exception {
+        // An expensive stored hash keeps the single hashing thread busy, so the registration waits in the queue
+        saveUser("erin@example.com", new BCryptPasswordEncoder(12).encode("secret"));
+        MvcResult login = mockMvc.perform(login("erin@example.com", "wrong"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult registration = mockMvc.perform(register("Frank", "frank@example.com", "secret"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Past the duplicate check, but the insert now hits the unique email
+        saveUser("frank@example.com", "x");
+
+        mockMvc.perform(asyncDispatch(registration))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Email already registered. Please sign in."));
+        mockMvc.perform(asyncDispatch(login)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void unknownEmailAndWrongPasswordAreRejected() throws Exception {
+        saveUser("bob@example.com", new BCryptPasswordEncoder(4).encode("secret"));
+
+        perform(login("nobody@example.com", "secret")).andExpect(status().isNotFound());
+        perform(login("bob@example.com", "wrong")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void loginRehashesWhenTheConfiguredCostChanges() throws Exception {
+        Long userId = saveUser("carol@example.com", new BCryptPasswordEncoder(5).encode("secret"));
+
+        perform(login("carol@example.com", "secret")).andExpect(status().isOk());
+
+        // The rehash runs after the response, on the hashing pool
+        long deadline = System.currentTimeMillis() + 5_000;
+        String stored = userRepository.findById(userId).orElseThrow().getPassword();
+        while (!stored.startsWith("$2a$04$") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            stored = userRepository.findById(userId).orElseThrow().getPassword();
+        }
+        assertThat(stored).startsWith("$2a$04$");
+        perform(login("carol@example.com", "secret")).andExpect(status().isOk());
+    }
+
+    @Test
+    void saturatedHashingPoolAnswers429() throws Exception {
+        // An expensive stored hash keeps the single hashing thread busy
+        saveUser("dave@example.com", new BCryptPasswordEncoder(10).encode("secret"));
+
+        List<MvcResult> started = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            started.add(mockMvc.perform(login("dave@example.com", "wrong"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+
+        int rejected = 0;
+        for (MvcResult result : started) {
+            MvcResult dispatched = mockMvc.perform(asyncDispatch(result)).andReturn();
+            if (dispatched.getResponse().getStatus() == 429) {
+                assertThat(dispatched.getResponse().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                rejected++;
+            } else {
+                assertThat(dispatched.getResponse().getStatus()).isEqualTo(401);
+            }
+        }
+        // One running, one queued, the rest turned away
+        assertThat(rejected).isEqualTo(2);
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private Long saveUser(String email, String passwordHash) {
+        User user = new User();
+        user.setName("Test");
+        user.setEmail(email);
+        user.setPassword(passwordHash);
+        return userRepository.save(user).getId();
+    }
+
+    private static RequestBuilder register(String name, String email, String password) {
+        return post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"password\":\"" + password + "\"}");
+    }
+
+    private static RequestBuilder login(String email, String password) {
+        return post("/api/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}");
+    }
+}
@@ -0,0 +1,134 @@
+package com.paki.expense_tracker.controller;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import com.paki.expense_tracker.service.UserEventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.webmvc.test.autoconfigure.MockMvcPrint;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not printed: the result would be read while the emitter is still writing to the open stream
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ClearDatabase
+class UserEventTests {
+
+    private static final Pattern EXPENSE_CREATED = Pattern.compile("id:(\\d+)\nevent:expense.created\n");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserEventService userEventService;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Events");
+        user.setEmail("events@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void writesArePushedAsDeltas() throws Exception {
+        MvcResult stream = subscribe(null);
+
+        Long expenseId = addExpense("Lunch", "12.50");
+        awaitContent(stream, "event:category.totals");
+        mockMvc.perform(delete("/api/expenses/{userId}/{expenseId}", userId, expenseId))
+                .andExpect(status().isNoContent());
+        String events = awaitContent(stream, "\"total\":0.00");
+
+        assertThat(events)
+                .contains("event:expense.created\ndata:{\"id\":" + expenseId + ",\"description\":\"Lunch\"")
+                .contains("\"amount\":12.50}")
+                .contains("event:category.totals\ndata:[{\"category\":\"Food\",\"total\":12.50,\"count\":1}]")
+                .contains("event:expense.deleted\ndata:{\"id\":" + expenseId + "}")
+                .contains("data:[{\"category\":\"Food\",\"total\":0.00,\"count\":0}]");
+    }
+
+    @Test
+    void reconnectReplaysOnlyMissedEvents() throws Exception {
+        MvcResult first = subscribe(null);
+        addExpense("Lunch", "12.50");
+        addExpense("Dinner", "30.00");
+        Matcher ids = EXPENSE_CREATED.matcher(awaitContent(first, "Dinner"));
+        assertThat(ids.find()).isTrue();
+        String firstId = ids.group(1);
+
+        String replayed = awaitContent(subscribe(firstId), "Dinner");
+        assertThat(replayed).doesNotContain("Lunch");
+    }
+
+    @Test
+    void unknownLastEventIdAsksTheClientToReload() throws Exception {
+        // An id from before this process started can no longer be replayed
+        assertThat(awaitContent(subscribe("1"), "event:reset")).doesNotContain("expense.created");
+    }
+
+    @Test
+    void deletingTheUserClosesTheirStreams() throws Exception {
+        MvcResult stream = subscribe(null);
+
+        mockMvc.perform(delete("/api/users/{userId}", userId)).andExpect(status().isNoContent());
+
+        // Completed by the delete, not by the timeout; nothing is kept for the user any more
+        stream.getAsyncResult(2000);
+        assertThat(userEventService.isWatched(userId)).isFalse();
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var request = get("/api/users/{userId}/events", userId).accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private Long addExpense(String description, String amount) throws Exception {
+        String body = mockMvc.perform(post("/api/expenses/{userId}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"" + description + "\",\"category\":\"Food\",\"amount\":" + amount
+                                + ",\"date\":\"2024-01-10\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        // Events are written by the feed's own threads
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+}
@@ -0,0 +1,133 @@
+package com.paki.expense_tracker.repository;
+
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Shows that date-range lookups stay flat as a user's history grows, and which indexes serve them.
+// Run with: mvn test -Pbenchmark
+@DataJpaTest
+// The configured MySQL-mode database, which the migrations are written for
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Tag("benchmark")
+@Slf4j
+class ExpenseQueryBenchmarkTests {
+
+    private static final String[] CATEGORIES = {"Food", "Transport", "Bills", "Shopping", "Health"};
+    private static final int[] HISTORY_SIZES = {1_000, 10_000, 100_000};
+    private static final int EXPENSES_PER_DAY = 10;
+    private static final int RUNS = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void monthQueryStaysFlatAsHistoryGrows() {
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        LocalDate end = LocalDate.of(2024, 3, 31);
+        List<Long> timings = new ArrayList<>();
+
+        for (int size : HISTORY_SIZES) {
+            User user = seedUser(size);
+            Integer foodId = categoryRepository.findByUserIdAndNormalizedKey(user.getId(), "food").orElseThrow().getId();
+
+            // Every history ends with the same month, only older rows are added
+            List<ExpenseResponse> month = expenseRepository.findResponsesByUserIdAndDateBetween(user.getId(), start, end);
+            assertThat(month).hasSize(31 * EXPENSES_PER_DAY);
+
+            long monthNanos = medianNanos(() -> expenseRepository.findResponsesByUserIdAndDateBetween(user.getId(), start, end));
+            long categoryNanos = medianNanos(() -> expenseRepository.findResponsesByUserIdAndCategoryId(user.getId(), foodId));
+            timings.add(monthNanos);
+            log.info("history={} rows, month={} us, category={} us",
+                    size, monthNanos / 1_000, categoryNanos / 1_000);
+        }
+
+        // A fixed-size slice should cost about the same no matter how much history sits behind it
+        long smallest = timings.get(0);
+        long largest = timings.get(timings.size() - 1);
+        assertThat(largest).isLessThan(smallest * 5 + 2_000_000);
+    }
+
+    @Test
+    void dateRangeQueryUsesCompositeIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT * FROM expense WHERE user_id = 1 AND date BETWEEN DATE '2024-01-01' AND DATE '2024-01-31'",
+                String.class);
+        assertThat(plan.toLowerCase()).contains("idx_expense_user_date");
+    }
+
+    @Test
+    void categoryTotalsAreReadFromTheCoveringIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT category_id, SUM(amount_cents) FROM expense WHERE user_id = 1 GROUP BY category_id",
+                String.class);
+        assertThat(plan.toLowerCase()).contains("idx_expense_user_category_date");
+    }
+
+    private User seedUser(int expenseCount) {
+        User user = new User();
+        user.setName("bench-" + expenseCount);
+        user.setEmail("bench-" + expenseCount + "@example.com");
+        user.setPassword("x");
+        user = userRepository.saveAndFlush(user);
+
+        Integer[] categoryIds = new Integer[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            Category category = Category.named(CATEGORIES[i]);
+            category.setNormalizedKey(Category.normalize(CATEGORIES[i]));
+            category.setUser(user);
+            categoryIds[i] = categoryRepository.saveAndFlush(category).getId();
+        }
+
+        // Insert through JDBC so seeding 10^5 rows does not dominate the run
+        LocalDate last = LocalDate.of(2024, 3, 31);
+        List<Object[]> rows = new ArrayList<>(expenseCount);
+        for (int i = 0; i < expenseCount; i++) {
+            LocalDate date = last.minusDays(i / EXPENSES_PER_DAY);
+            rows.add(new Object[]{"expense " + i, categoryIds[i % CATEGORIES.length], (i % 500) * 100L + 99,
+                    Date.valueOf(date), user.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO expense (description, category_id, amount_cents, currency, date, user_id, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, 'USD', ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", rows);
+        return user;
+    }
+
+    private static long medianNanos(Runnable query) {
+        for (int i = 0; i < 10; i++) {
+            query.run();
+        }
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            query.run();
+            samples[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+}
@@ -0,0 +1,115 @@
+package com.paki.expense_tracker.repository;
+
+import com.paki.expense_tracker.dto.CategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+// The configured MySQL-mode database, which the migrations are written for
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExpenseRepositoryTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private User user;
+    private final Map<String, Category> categories = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Test");
+        user.setEmail("test@example.com");
+        user.setPassword("x");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void summarizeByUserAggregatesInTheDatabase() {
+        save("Food", 1050, LocalDate.of(2024, 1, 5));
+        save("Food", 450, LocalDate.of(2024, 1, 6));
+        save("Bills", 8500, LocalDate.of(2024, 2, 1));
+
+        SpendingSummary summary = expenseRepository.summarizeByUserId(user.getId());
+
+        assertThat(summary.totalCents()).isEqualTo(10000);
+        assertThat(summary.count()).isEqualTo(3);
+        assertThat(summary.averageCents()).isEqualTo(3333);
+    }
+
+    @Test
+    void summarizeByUserWithoutExpensesIsZero() {
+        SpendingSummary summary = expenseRepository.summarizeByUserId(user.getId());
+
+        assertThat(summary.totalCents()).isZero();
+        assertThat(summary.count()).isZero();
+        assertThat(summary.averageCents()).isZero();
+    }
+
+    @Test
+    void averageRoundsHalfUpWithoutLosingPrecision() {
+        assertThat(new SpendingSummary(5, 2).averageCents()).isEqualTo(3);
+        assertThat(new SpendingSummary(7, 3).averageCents()).isEqualTo(2);
+        // Past 2^53 a double can no longer hold every cent
+        assertThat(new SpendingSummary(9_007_199_254_740_993L, 1).averageCents()).isEqualTo(9_007_199_254_740_993L);
+    }
+
+    @Test
+    void totalsByCategoryGroupsPerCategory() {
+        save("Food", 1050, LocalDate.of(2024, 1, 5));
+        save("Food", 450, LocalDate.of(2024, 1, 6));
+        save("Bills", 8500, LocalDate.of(2024, 2, 1));
+
+        assertThat(expenseRepository.totalsByCategory(user.getId())).containsExactlyInAnyOrder(
+                new CategoryTotal(categories.get("Food").getId(), "Food", 1500, 2),
+                new CategoryTotal(categories.get("Bills").getId(), "Bills", 8500, 1)
+        );
+    }
+
+    @Test
+    void responsesByCategoryIdCarryTheCategoryName() {
+        save("Food", 1050, LocalDate.of(2024, 1, 5));
+        save("Bills", 8500, LocalDate.of(2024, 2, 1));
+
+        assertThat(expenseRepository.findResponsesByUserIdAndCategoryId(user.getId(), categories.get("Food").getId()))
+                .singleElement()
+                .satisfies(expense -> {
+                    assertThat(expense.category()).isEqualTo("Food");
+                    assertThat(expense.amountCents()).isEqualTo(1050);
+                });
+    }
+
+    private void save(String category, long amountCents, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setDescription(category + " " + amountCents);
+        expense.setCategory(categories.computeIfAbsent(category, name -> {
+            Category created = Category.named(name);
+            created.setNormalizedKey(Category.normalize(name));
+            created.setUser(user);
+            return categoryRepository.save(created);
+        }));
+        expense.setAmountCents(amountCents);
+        expense.setDate(date);
+        expense.setUser(user);
+        expenseRepository.save(expense);
+    }
+}
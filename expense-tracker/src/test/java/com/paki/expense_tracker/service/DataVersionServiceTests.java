@@ -0,0 +1,70 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.config.CacheConfig;
+import com.paki.expense_tracker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataVersionServiceTests {
+
+    private final AtomicLong storedVersion = new AtomicLong(1);
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CacheManager cacheManager = new CacheConfig().cacheManager("maximumSize=100");
+    private final DataVersionService dataVersionService = new DataVersionService(userRepository(), cacheManager);
+
+    @Test
+    void evictionDuringALoadIsNotOverwrittenByIt() throws Exception {
+        // A reader misses and reads version 1 from the database
+        CompletableFuture<Long> reader = CompletableFuture.supplyAsync(() -> dataVersionService.current(7L));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Meanwhile a write commits version 2 and evicts; the eviction waits for the load in flight
+        storedVersion.set(2);
+        CompletableFuture<Void> eviction = CompletableFuture.runAsync(
+                () -> cacheManager.getCache(CacheConfig.DATA_VERSIONS).evict(7L));
+        Thread.sleep(100);
+        assertThat(eviction).isNotDone();
+
+        release.countDown();
+        assertThat(reader.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        eviction.get(5, TimeUnit.SECONDS);
+        assertThat(dataVersionService.current(7L)).isEqualTo(2L);
+    }
+
+    @Test
+    void missingUsersAreNotCached() {
+        assertThat(dataVersionService.current(404L)).isNull();
+        storedVersion.set(3);
+        assertThat(dataVersionService.current(404L)).isEqualTo(3L);
+    }
+
+    // Answers the version lookup only; the first lookup of user 7 blocks until released
+    private UserRepository userRepository() {
+        return (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findDataVersionById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (args[0].equals(404L) && storedVersion.get() == 1) {
+                        return Optional.empty();
+                    }
+                    if (args[0].equals(7L) && loading.getCount() > 0) {
+                        long version = storedVersion.get();
+                        loading.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return Optional.of(version);
+                    }
+                    return Optional.of(storedVersion.get());
+                });
+    }
+}
@@ -0,0 +1,156 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.dto.ExpenseResponse;
+import com.paki.expense_tracker.dto.ExpenseText;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ClearDatabase
+class ExpenseSearchServiceTests {
+
+    @Autowired
+    private ExpenseSearchService expenseSearchService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Search");
+        user.setEmail("search@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void everyWordIsAPrefixAndFiltersNarrowTheMatches() {
+        add("Coffee shop", "Food", LocalDate.of(2024, 1, 5));
+        add("Coffee beans, 1kg", "Groceries", LocalDate.of(2024, 2, 1));
+        add("Bus to the coffee-shop", "Transport", LocalDate.of(2024, 3, 1));
+        add("Shoes", "Clothing", null);
+        add("Tea", "Food", LocalDate.of(2024, 1, 6));
+
+        // Newest first; an expense matching several terms of one prefix is listed once
+        assertThat(descriptions(search("COF", null, null, null))).containsExactly(
+                "Bus to the coffee-shop", "Coffee beans, 1kg", "Coffee shop");
+        assertThat(descriptions(search("cof sho", null, null, null))).containsExactly(
+                "Bus to the coffee-shop", "Coffee shop");
+        // Undated expenses come last, and only when no date bound is given
+        assertThat(descriptions(search("sho", null, null, null))).containsExactly(
+                "Bus to the coffee-shop", "Coffee shop", "Shoes");
+        assertThat(descriptions(search("sho", null, LocalDate.of(2024, 1, 1), null))).containsExactly(
+                "Bus to the coffee-shop", "Coffee shop");
+        assertThat(descriptions(search("coffee", null, null, LocalDate.of(2024, 2, 1)))).containsExactly(
+                "Coffee beans, 1kg", "Coffee shop");
+        Integer food = categoryService.find(userId, "food").getId();
+        assertThat(descriptions(search("c", food, null, null))).containsExactly("Coffee shop");
+        assertThat(search("coffee tea", null, null, null)).isEmpty();
+
+        assertThat(meterRegistry.get("search.queries").timer().count()).isPositive();
+        assertThat(meterRegistry.get("search.index.bytes").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("search.index.users").gauge().value()).isPositive();
+    }
+
+    @Test
+    void writesKeepTheIndexCurrent() {
+        Expense coffee = add("Coffee", "Food", LocalDate.of(2024, 1, 5));
+        Expense taxi = add("Taxi home", "Transport", LocalDate.of(2024, 1, 6));
+        assertThat(search("coffee", null, null, null)).hasSize(1);
+        long builds = meterRegistry.get("search.index.builds").timer().count();
+
+        add("Coffee again", "Food", LocalDate.of(2024, 1, 7));
+        Expense renamed = new Expense();
+        renamed.setDescription("Espresso");
+        renamed.setCategory(Category.named("Food"));
+        renamed.setAmountCents(300);
+        renamed.setDate(LocalDate.of(2024, 1, 5));
+        expenseService.update(userId, coffee.getId(), renamed);
+        expenseService.delete(userId, taxi.getId());
+        Budget budget = new Budget();
+        budget.setCategory(Category.named("Food"));
+        budget.setAmountCents(10000);
+        budgetService.add(userId, budget);
+
+        // Every write was applied in version order, so no rebuild was needed
+        assertThat(expenseSearchService.isCurrent(userId)).isTrue();
+        assertThat(descriptions(search("coffee", null, null, null))).containsExactly("Coffee again");
+        assertThat(descriptions(search("esp", null, null, null))).containsExactly("Espresso");
+        assertThat(search("taxi", null, null, null)).isEmpty();
+        assertThat(meterRegistry.get("search.index.builds").timer().count()).isEqualTo(builds);
+
+        expenseService.deleteAll(userId);
+        assertThat(expenseSearchService.isCurrent(userId)).isTrue();
+        assertThat(search("coffee", null, null, null)).isEmpty();
+    }
+
+    @Test
+    void onlyTheNextVersionIsApplied() {
+        SearchIndex index = SearchIndex.load(5, List.of(
+                new ExpenseText(1L, "Coffee", LocalDate.of(2024, 1, 5), 7)).iterator());
+
+        // Out of order: skipped, the index now trails and is rebuilt by the service
+        assertThat(index.apply(7, false, null, new ExpenseText(2L, "Cocoa", LocalDate.of(2024, 1, 6), 7)))
+                .isFalse();
+        assertThat(index.version()).isEqualTo(5);
+
+        // A write the load already saw is an upsert: the old words go, the new ones come
+        assertThat(index.apply(6, false, null, new ExpenseText(1L, "Cocoa", LocalDate.of(2024, 1, 5), 7)))
+                .isTrue();
+        assertThat(index.search(new String[]{"co"}, null, null, null, 10)).containsExactly(1L);
+        assertThat(index.search(new String[]{"coffee"}, null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void queriesAreSplitLikeDescriptions() {
+        assertThat(SearchIndex.terms("  Café, CAFÉ & re-fill #2 ")).containsExactly("café", "re", "fill", "2");
+        assertThat(SearchIndex.terms("--- !!")).isEmpty();
+        assertThat(SearchIndex.terms(null)).isEmpty();
+    }
+
+    private List<ExpenseResponse> search(String query, Integer categoryId, LocalDate from, LocalDate to) {
+        return expenseSearchService.search(userId, ExpenseSearchService.terms(query), categoryId, from, to, 50);
+    }
+
+    private static List<String> descriptions(List<ExpenseResponse> expenses) {
+        return expenses.stream().map(ExpenseResponse::description).toList();
+    }
+
+    private Expense add(String description, String category, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setDescription(description);
+        expense.setCategory(Category.named(category));
+        expense.setAmountCents(100);
+        expense.setDate(date);
+        return expenseService.add(userId, expense);
+    }
+}
@@ -0,0 +1,183 @@
+package com.paki.expense_tracker.service;
+
+import com.paki.expense_tracker.ClearDatabase;
+import com.paki.expense_tracker.dto.ExpenseRow;
+import com.paki.expense_tracker.dto.MonthlyCategoryTotal;
+import com.paki.expense_tracker.dto.SpendingSummary;
+import com.paki.expense_tracker.entity.Budget;
+import com.paki.expense_tracker.entity.Category;
+import com.paki.expense_tracker.entity.Expense;
+import com.paki.expense_tracker.entity.User;
+import com.paki.expense_tracker.repository.ExpenseRepository;
+import com.paki.expense_tracker.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "analytics.snapshot.enabled=true")
+@ClearDatabase
+class ExpenseSnapshotServiceTests {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 3, 31);
+
+    @Autowired
+    private ExpenseSnapshotService expenseSnapshotService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Snapshot");
+        user.setEmail("snapshot@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void coldReadsGoToSqlAndWarmReadsMatchIt() throws Exception {
+        add("Food", 1000, LocalDate.of(2024, 1, 5));
+        add("Food", 2000, LocalDate.of(2024, 3, 10));
+        add("Transport", 4050, LocalDate.of(2024, 3, 31));
+        add("Food", 9900, LocalDate.of(2023, 12, 31));
+        add("Food", 500, null);
+
+        // The first read is answered by SQL and starts the build
+        SpendingSummary cold = expenseSnapshotService.summary(userId, FROM, TO);
+        assertThat(cold).isEqualTo(new SpendingSummary(7050, 3));
+        awaitWarm();
+
+        assertThat(expenseSnapshotService.summary(userId, FROM, TO)).isEqualTo(cold);
+        assertMatchesSql();
+        assertThat(meterRegistry.get("analytics.snapshot.reads").tag("source", "snapshot").counter().count())
+                .isPositive();
+        assertThat(meterRegistry.get("analytics.snapshot.bytes").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("analytics.snapshot.users").gauge().value()).isPositive();
+    }
+
+    @Test
+    void writesKeepTheSnapshotCurrent() throws Exception {
+        Expense food = add("Food", 1000, LocalDate.of(2024, 1, 5));
+        Expense transport = add("Transport", 4050, LocalDate.of(2024, 2, 1));
+        expenseSnapshotService.summary(userId, FROM, TO);
+        awaitWarm();
+
+        add("Rent", 90000, LocalDate.of(2024, 3, 1));
+        Expense moved = new Expense();
+        moved.setDescription("Moved");
+        moved.setCategory(Category.named("Rent"));
+        moved.setAmountCents(1500);
+        moved.setDate(LocalDate.of(2024, 3, 2));
+        expenseService.update(userId, food.getId(), moved);
+        expenseService.delete(userId, transport.getId());
+        Budget budget = new Budget();
+        budget.setCategory(Category.named("Rent"));
+        budget.setAmountCents(100000);
+        budgetService.add(userId, budget);
+
+        // Every write was applied in version order, so no rebuild was needed
+        assertThat(expenseSnapshotService.isWarm(userId)).isTrue();
+        assertThat(expenseSnapshotService.summary(userId, FROM, TO)).isEqualTo(new SpendingSummary(91500, 2));
+        assertMatchesSql();
+
+        expenseService.deleteAll(userId);
+        assertThat(expenseSnapshotService.isWarm(userId)).isTrue();
+        assertThat(expenseSnapshotService.summary(userId, FROM, TO)).isEqualTo(new SpendingSummary(0, 0));
+    }
+
+    @Test
+    void onlyTheNextVersionIsApplied() {
+        ExpenseSnapshot snapshot = ExpenseSnapshot.load(5, List.of(
+                new ExpenseRow(1L, 1000, LocalDate.of(2024, 1, 5), 7, "Food")).iterator());
+
+        // Out of order: skipped, the snapshot now trails and is rebuilt by the service
+        assertThat(snapshot.apply(7, false, null, new ExpenseRow(2L, 500, LocalDate.of(2024, 1, 6), 7, "Food")))
+                .isFalse();
+        assertThat(snapshot.version()).isEqualTo(5);
+
+        // A write the load already saw is an upsert, not a second row
+        assertThat(snapshot.apply(6, false, null, new ExpenseRow(1L, 1200, LocalDate.of(2024, 1, 5), 7, "Food")))
+                .isTrue();
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.summarize(FROM, TO)).isEqualTo(new SpendingSummary(1200, 1));
+        assertThat(snapshot.monthlyTotalsByCategory(FROM, TO))
+                .containsExactly(new MonthlyCategoryTotal(7, "Food", 2024, 1, 1200, 1));
+    }
+
+    @Test
+    void rowsAreFoundByIdThroughManyWritesAndRemovals() {
+        ExpenseSnapshot snapshot = ExpenseSnapshot.load(0, List.<ExpenseRow>of().iterator());
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        long version = 0;
+        // Enough rows to grow the columns and the id index several times; removals shuffle rows around
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                snapshot.apply(++version, false, id, null);
+                expected.remove(id);
+            } else {
+                long cents = random.nextInt(10_000);
+                snapshot.apply(++version, false, null, new ExpenseRow(id, cents, LocalDate.of(2024, 1, 5), 7, "Food"));
+                expected.put(id, cents);
+            }
+        }
+
+        assertThat(snapshot.size()).isEqualTo(expected.size());
+        assertThat(snapshot.summarize(FROM, TO)).isEqualTo(new SpendingSummary(
+                expected.values().stream().mapToLong(Long::longValue).sum(), expected.size()));
+    }
+
+    private void assertMatchesSql() {
+        assertThat(expenseSnapshotService.summary(userId, FROM, TO))
+                .isEqualTo(expenseRepository.summarizeBetween(userId, FROM, TO));
+        assertThat(expenseSnapshotService.categoryTotals(userId, FROM, TO))
+                .containsExactlyInAnyOrderElementsOf(expenseRepository.totalsByCategoryBetween(userId, FROM, TO));
+        assertThat(expenseSnapshotService.monthlyTotalsByCategory(userId, FROM, TO))
+                .containsExactlyInAnyOrderElementsOf(
+                        expenseRepository.monthlyTotalsByCategoryBetween(userId, FROM, TO));
+    }
+
+    private Expense add(String category, long amountCents, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setDescription(category);
+        expense.setCategory(Category.named(category));
+        expense.setAmountCents(amountCents);
+        expense.setDate(date);
+        return expenseService.add(userId, expense);
+    }
+
+    private void awaitWarm() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expenseSnapshotService.isWarm(userId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(expenseSnapshotService.isWarm(userId)).isTrue();
+    }
+}
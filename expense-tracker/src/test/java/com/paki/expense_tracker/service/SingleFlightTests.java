@@ -0,0 +1,81 @@
+package com.paki.expense_tracker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+
+    @Test
+    void concurrentCallsForTheSameKeyRunOnce() throws Exception {
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.run("k", () -> {
+            invocations.incrementAndGet();
+            running.countDown();
+            await(release);
+            return "result";
+        }), executor);
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<?>[] followers = new CompletableFuture<?>[3];
+        for (int i = 0; i < followers.length; i++) {
+            followers[i] = CompletableFuture.supplyAsync(() -> singleFlight.run("k", () -> {
+                invocations.incrementAndGet();
+                return "other";
+            }), executor);
+        }
+        // Followers have joined once the counter says so
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced() < followers.length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        for (CompletableFuture<?> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(invocations).hasValue(1);
+        executor.shutdown();
+
+        // Finished calls are not remembered
+        assertThat(singleFlight.run("k", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void failureIsRethrownAndNotCached() {
+        assertThatThrownBy(() -> singleFlight.run("k", () -> {
+            throw new RuntimeException("User not found");
+        })).hasMessage("User not found");
+
+        assertThat(singleFlight.run("k", () -> "ok")).isEqualTo("ok");
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("singleflight.requests").tag("outcome", "coalesced").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.paki.expense_tracker.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserEventServiceTests {
+
+    private static final int QUEUE_CAPACITY = 4;
+
+    // Writer tasks wait here until the test runs them, standing in for a connection that is not keeping up
+    private final Queue<Runnable> writerTasks = new ArrayDeque<>();
+    private final Queue<Object> published = new ArrayDeque<>();
+    private UserEventService userEventService;
+
+    @BeforeEach
+    void setUp() {
+        userEventService = new UserEventService(JsonMapper.builder().build(), published::add, null,
+                writerTasks::add, QUEUE_CAPACITY, 10, 1, 60_000);
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedInsteadOfBlockingTheWriter() {
+        assertThat(userEventService.subscribe(1L, null)).isNotNull();
+        // The single slot is taken
+        assertThat(userEventService.subscribe(1L, null)).isNull();
+
+        for (int i = 0; i < QUEUE_CAPACITY + 1; i++) {
+            userEventService.broadcast(1L, "expense.created", Map.of("id", i));
+        }
+
+        // The overflowing subscriber was dropped, freeing its slot
+        assertThat(userEventService.subscribe(1L, null)).isNotNull();
+    }
+
+    @Test
+    void subscriberThatKeepsUpStaysConnected() {
+        assertThat(userEventService.subscribe(1L, null)).isNotNull();
+
+        for (int i = 0; i < QUEUE_CAPACITY * 3; i++) {
+            userEventService.broadcast(1L, "expense.created", Map.of("id", i));
+            runWriters();
+        }
+
+        assertThat(userEventService.subscribe(1L, null)).isNull();
+    }
+
+    @Test
+    void changesForUnwatchedUsersAreNotBuilt() {
+        userEventService.changed(2L, "expense.created", Map.of("id", 1));
+        assertThat(published).isEmpty();
+
+        userEventService.subscribe(2L, null);
+        userEventService.changed(2L, "expense.created", Map.of("id", 1));
+        assertThat(published).hasSize(1);
+    }
+
+    private void runWriters() {
+        Runnable task;
+        while ((task = writerTasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Every table the migrations create, rows that reference others first
+delete from budget_alert;
+delete from spending_rollup;
+delete from expense;
+delete from budget;
+delete from category;
+delete from users;
@@ -35,7 +35,7 @@ import {
   AreaChart,
   Area,
 } from "recharts";
-import { userAPI, expenseAPI, budgetAPI } from "./api";
+import { userAPI, expenseAPI, budgetAPI, eventsAPI } from "./api";
 import "./App.css";
 
 const ExpenseTracker = () => {
@@ -80,6 +80,7 @@ const ExpenseTracker = () => {
   const [showCurrencyMenu, setShowCurrencyMenu] = useState(false);
   const currencyMenuRef = useRef(null);
   const exportMenuRef = useRef(null);
+  const eventsRef = useRef(null);
 
   const categories = [
     { id: "food", label: "Food & Dining", color: "#FF6B6B", icon: "🍽️" },
@@ -118,6 +119,51 @@ const ExpenseTracker = () => {
     }
   }, []);
 
+  // Apply pushed changes instead of re-fetching everything after each write
+  useEffect(() => {
+    if (!currentUser?.id) return undefined;
+    const userId = currentUser.id;
+    const events = eventsAPI.subscribe(userId);
+    eventsRef.current = events;
+
+    const upsertExpense = (e) => {
+      const expense = JSON.parse(e.data);
+      setExpenses((prev) =>
+        prev.some((exp) => exp.id === expense.id)
+          ? prev.map((exp) => (exp.id === expense.id ? expense : exp))
+          : [...prev, expense],
+      );
+    };
+    const upsertBudget = (e) => {
+      const budget = JSON.parse(e.data);
+      setBudgets((prev) => ({ ...prev, [budget.category]: budget.amount }));
+    };
+
+    events.addEventListener("expense.created", upsertExpense);
+    events.addEventListener("expense.updated", upsertExpense);
+    events.addEventListener("expense.deleted", (e) => {
+      const { id } = JSON.parse(e.data);
+      setExpenses((prev) => prev.filter((exp) => exp.id !== id));
+    });
+    events.addEventListener("expenses.cleared", () => setExpenses([]));
+    events.addEventListener("expenses.imported", () => loadExpenses(userId));
+    events.addEventListener("budget.created", upsertBudget);
+    events.addEventListener("budget.updated", upsertBudget);
+    events.addEventListener("budget.deleted", () => loadBudgets(userId));
+    // The server could not replay what was missed while disconnected
+    events.addEventListener("reset", () => {
+      loadExpenses(userId);
+      loadBudgets(userId);
+    });
+
+    return () => {
+      events.close();
+      eventsRef.current = null;
+    };
+  }, [currentUser?.id]);
+
+  const isLive = () => eventsRef.current?.readyState === EventSource.OPEN;
+
   // Apply dark mode
   useEffect(() => {
     localStorage.setItem("darkMode", darkMode);
@@ -228,7 +274,7 @@ const ExpenseTracker = () => {
   // Load expenses from backend
   const loadExpenses = async (userId) => {
     try {
-      const response = await expenseAPI.getAllExpenses(userId);
+      const response = await expenseAPI.getExpenses(userId);
       setExpenses(response.data || []);
     } catch (err) {
       addNotification("Failed to load expenses", "error");
@@ -265,7 +311,7 @@ const ExpenseTracker = () => {
         date,
       };
       await expenseAPI.addExpense(currentUser.id, expenseData);
-      loadExpenses(currentUser.id);
+      if (!isLive()) loadExpenses(currentUser.id);
       setDescription("");
       setAmount("");
       setDate(new Date().toISOString().split("T")[0]);
@@ -281,7 +327,7 @@ const ExpenseTracker = () => {
   const deleteExpense = async (id) => {
     try {
       await expenseAPI.deleteExpense(currentUser.id, id);
-      loadExpenses(currentUser.id);
+      if (!isLive()) loadExpenses(currentUser.id);
       addNotification("Expense deleted", "info");
     } catch (err) {
       addNotification("Failed to delete expense", "error");
@@ -302,7 +348,7 @@ const ExpenseTracker = () => {
         amount: parseFloat(budgetAmount),
       };
       await budgetAPI.setBudget(currentUser.id, budgetData);
-      loadBudgets(currentUser.id);
+      if (!isLive()) loadBudgets(currentUser.id);
       setBudgetAmount("");
       setShowBudgetModal(false);
       addNotification("Budget set successfully! 🎯", "success");
@@ -28,9 +28,16 @@ export const expenseAPI = {
   addExpense: (userId, expenseData) =>
     api.post(`/expenses/${userId}`, expenseData),
 
+  addExpenses: (userId, expenseList) =>
+    api.post(`/expenses/${userId}/batch`, expenseList),
+
   getExpenses: (userId) => api.get(`/expenses/${userId}`),
 
-  getAllExpenses: (userId) => api.get(`/expenses/${userId}/all`),
+  getExpensePage: (userId, cursor, size) =>
+    api.get(`/expenses/${userId}/page`, { params: { cursor, size } }),
+
+  exportExpenses: (userId) =>
+    api.get(`/expenses/${userId}/all`, { responseType: "text" }),
 
   getExpensesByCategory: (userId, category) =>
     api.get(`/expenses/${userId}/by-category/${category}`),
@@ -69,4 +76,10 @@ export const budgetAPI = {
     api.delete(`/budgets/${userId}/${budgetId}`),
 };
 
+// Change feed (Server-Sent Events); the browser reconnects with Last-Event-ID on its own
+export const eventsAPI = {
+  subscribe: (userId) =>
+    new EventSource(`${API_BASE_URL}/users/${userId}/events`),
+};
+
 export default api;